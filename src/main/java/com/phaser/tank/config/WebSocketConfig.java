@@ -1,17 +1,72 @@
 package com.phaser.tank.config;
 
+import com.phaser.tank.handler.OutboundSettings;
+import com.phaser.tank.handler.OverflowPolicy;
 import com.phaser.tank.handler.TankWebSocketHandler;
+import com.phaser.tank.manager.RoomManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.*;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Configuration
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
+
+    @Value("${tank.outbound.capacity:64}")
+    private int outboundCapacity;
+
+    @Value("${tank.outbound.overflow-policy:coalesce}")
+    private String overflowPolicy;
+
+    // Same switch that moves Tomcat's request and WebSocket message handling onto virtual threads
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(new TankWebSocketHandler(), "/ws/create")
+        OutboundSettings outboundSettings = new OutboundSettings(
+                outboundCapacity,
+                OverflowPolicy.fromProperty(overflowPolicy),
+                writerExecutor()
+        );
+
+        // Both endpoints share the one room manager
+        registry.addHandler(new TankWebSocketHandler(roomManager(), outboundSettings), "/ws/create")
                 .setAllowedOrigins("*");
-        registry.addHandler(new TankWebSocketHandler(), "/ws/join/{roomId}")
+        registry.addHandler(new TankWebSocketHandler(roomManager(), outboundSettings), "/ws/join/{roomId}")
                 .setAllowedOrigins("*");
     }
+
+    /**
+     * All rooms of the server. Spring starts its reaper once the bean is ready and stops it on shutdown.
+     */
+    @Bean
+    public RoomManager roomManager() {
+        return new RoomManager();
+    }
+
+    /**
+     * Runs the per-session writers. With virtual threads every draining session gets its own
+     * cheap thread, so thousands of clients never need thousands of platform threads; otherwise
+     * a cached pool of daemon platform threads is used.
+     */
+    private ExecutorService writerExecutor() {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ws-writer-", 0).factory());
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "ws-writer-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newCachedThreadPool(threadFactory);
+    }
 }
@@ -0,0 +1,51 @@
+package com.phaser.tank.event;
+
+import java.util.Arrays;
+
+/**
+ * Append-only buffer of reusable {@link GameEvent} slots.
+ * Written and drained by the room's simulation thread only: producers call
+ * {@link #append}, the broadcaster reads slots by index and then {@link #clear}s.
+ * Slots are allocated once and recycled, so a warmed-up buffer never allocates.
+ */
+public class EventBuffer {
+
+    private GameEvent[] slots;
+    private int size;
+
+    public EventBuffer(int initialCapacity) {
+        slots = new GameEvent[Math.max(1, initialCapacity)];
+    }
+
+    public GameEvent append(EventType type) {
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+        }
+
+        GameEvent event = slots[size];
+        if (event == null) {
+            event = new GameEvent();
+            slots[size] = event;
+        }
+        size++;
+
+        event.reset(type);
+        return event;
+    }
+
+    public GameEvent get(int index) {
+        return slots[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,35 @@
+package com.phaser.tank.event;
+
+public enum EventType {
+    BULLET_CREATE("create"),
+    BULLET_MOVE("move"),
+    BULLET_DESTROY("destroy"),
+
+    ENEMY_SPAWN("spawn"),
+    ENEMY_MOVE("move"),
+    ENEMY_DESTROY("destroy"),
+
+    PLAYER_SPAWN("spawn"),
+    PLAYER_MOVE("move"),
+    PLAYER_DESTROY("destroy"),
+
+    BONUS_SPAWN("spawn"),
+    BONUS_REMOVE("remove"),
+    BONUS_COLLECTED("collected"),
+
+    TILE_UPDATE("update"),
+    EXPLOSION("explode");
+
+    private final String action;
+
+    EventType(String action) {
+        this.action = action;
+    }
+
+    /**
+     * Action name used on the wire, e.g. "move" or "destroy".
+     */
+    public String getAction() {
+        return action;
+    }
+}
@@ -0,0 +1,33 @@
+package com.phaser.tank.event;
+
+import com.phaser.tank.model.BulletOrigin;
+import com.phaser.tank.model.Direction;
+
+/**
+ * A single pooled event slot. Instances are owned by an {@link EventBuffer} and
+ * overwritten every tick, so consumers must not keep references past the drain.
+ * Only the fields relevant to the {@link EventType} are meaningful.
+ */
+public class GameEvent {
+    public EventType type;
+    public int netId;
+    public int playerId;
+    public int x;
+    public int y;
+    public Direction direction;
+    public BulletOrigin origin;
+    public String bonusType;
+    public char tile;
+
+    void reset(EventType type) {
+        this.type = type;
+        this.netId = 0;
+        this.playerId = 0;
+        this.x = 0;
+        this.y = 0;
+        this.direction = null;
+        this.origin = null;
+        this.bonusType = null;
+        this.tile = 0;
+    }
+}
@@ -0,0 +1,29 @@
+package com.phaser.tank.event;
+
+/**
+ * All events produced during one simulation tick, grouped the way they are sent
+ * to clients.
+ */
+public class TickEvents {
+
+    public final EventBuffer bullets = new EventBuffer(64);
+    public final EventBuffer bonuses = new EventBuffer(4);
+    public final EventBuffer tiles = new EventBuffer(16);
+    public final EventBuffer explosions = new EventBuffer(16);
+    public final EventBuffer enemies = new EventBuffer(16);
+    public final EventBuffer players = new EventBuffer(8);
+
+    public boolean isEmpty() {
+        return bullets.isEmpty() && bonuses.isEmpty() && tiles.isEmpty()
+                && explosions.isEmpty() && enemies.isEmpty() && players.isEmpty();
+    }
+
+    public void clear() {
+        bullets.clear();
+        bonuses.clear();
+        tiles.clear();
+        explosions.clear();
+        enemies.clear();
+        players.clear();
+    }
+}
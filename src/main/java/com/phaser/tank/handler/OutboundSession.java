@@ -0,0 +1,210 @@
+package com.phaser.tank.handler;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Bounded outbound queue in front of a {@link WebSocketSession}.
+ * Any thread may enqueue without blocking; a single writer task on the settings' executor
+ * drains the queue, so a slow socket only ever delays its own frames.
+ *
+ * Frames are either reliable (start, spawn, base_destroyed, ...) or droppable (game ticks).
+ * When the queue is full the {@link OverflowPolicy} only discards droppable frames;
+ * if nothing can be discarded the client is disconnected.
+ *
+ * A droppable frame may carry the snapshot tick it was built from. Once the writer has handed
+ * that frame to the socket the tick becomes the client's acknowledged baseline, which the room
+ * uses to encode the next state deltas. Over a reliable transport the client is sure to receive
+ * that frame, so dropped frames never corrupt its state: later deltas are relative to a
+ * snapshot it really has. Frames still queued share the same baseline, which is why clients
+ * apply each delta to the state of its baseline tick rather than to their latest state.
+ */
+public class OutboundSession {
+
+    private static final class Frame {
+        final WebSocketMessage<?> message;
+        final boolean droppable;
+        final long snapshotTick;
+
+        Frame(WebSocketMessage<?> message, boolean droppable, long snapshotTick) {
+            this.message = message;
+            this.droppable = droppable;
+            this.snapshotTick = snapshotTick;
+        }
+    }
+
+    private final WebSocketSession session;
+    private final OutboundSettings settings;
+
+    // Guarded by this
+    private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+    private boolean draining = false;
+    private boolean closed = false;
+
+    private volatile long droppedFrames = 0;
+    private volatile long ackedTick = -1;
+    private volatile boolean resyncRequested = false;
+
+    public OutboundSession(WebSocketSession session, OutboundSettings settings) {
+        this.session = session;
+        this.settings = settings;
+    }
+
+    public WebSocketSession getSession() {
+        return session;
+    }
+
+    /**
+     * Queues a message that must reach the client.
+     */
+    public boolean send(WebSocketMessage<?> message) {
+        return enqueue(new Frame(message, false, -1));
+    }
+
+    /**
+     * Queues a message that may be discarded if the client falls behind.
+     */
+    public boolean sendDroppable(WebSocketMessage<?> message) {
+        return enqueue(new Frame(message, true, -1));
+    }
+
+    /**
+     * Queues a droppable frame that carries the state of the given snapshot tick.
+     */
+    public boolean sendSnapshot(WebSocketMessage<?> message, long snapshotTick) {
+        return enqueue(new Frame(message, true, snapshotTick));
+    }
+
+    private boolean enqueue(Frame frame) {
+        boolean startWriter = false;
+        boolean disconnect = false;
+        synchronized (this) {
+            if (closed || !session.isOpen()) return false;
+
+            if (queue.size() >= settings.getCapacity() && !makeRoom()) {
+                closed = true;
+                queue.clear();
+                disconnect = true;
+            } else {
+                queue.addLast(frame);
+                startWriter = !draining;
+                draining = true;
+            }
+        }
+
+        if (disconnect) {
+            // Closing a socket can block on a stuck peer; never do it on the caller's thread
+            settings.getWriterExecutor().execute(this::closeSlowClient);
+            return false;
+        }
+        if (startWriter) {
+            settings.getWriterExecutor().execute(this::drain);
+        }
+        return true;
+    }
+
+    // Called with the lock held; returns false if the policy says to disconnect
+    private boolean makeRoom() {
+        switch (settings.getOverflowPolicy()) {
+            case COALESCE -> {
+                int before = queue.size();
+                queue.removeIf(f -> f.droppable);
+                recordDropped(before - queue.size());
+            }
+            case DROP_OLDEST -> {
+                for (Iterator<Frame> it = queue.iterator(); it.hasNext(); ) {
+                    if (it.next().droppable) {
+                        it.remove();
+                        recordDropped(1);
+                        break;
+                    }
+                }
+            }
+            case DISCONNECT -> {
+                return false;
+            }
+        }
+        return queue.size() < settings.getCapacity();
+    }
+
+    private void recordDropped(int count) {
+        if (count == 0) return;
+        droppedFrames += count;
+    }
+
+    private void drain() {
+        while (true) {
+            Frame frame;
+            synchronized (this) {
+                frame = queue.pollFirst();
+                if (frame == null || closed) {
+                    draining = false;
+                    return;
+                }
+            }
+
+            try {
+                session.sendMessage(frame.message);
+                if (frame.snapshotTick > ackedTick) {
+                    ackedTick = frame.snapshotTick;
+                }
+            } catch (Exception e) {
+                System.err.println("Failed to send to session " + session.getId() + ": " + e.getMessage());
+                close();
+            }
+        }
+    }
+
+    // Runs on the writer executor, outside the lock
+    private void closeSlowClient() {
+        System.err.println("Disconnecting slow session " + session.getId());
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops the writer and discards anything still queued.
+     */
+    public synchronized void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    public synchronized int getQueuedFrames() {
+        return queue.size();
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * Latest snapshot tick written to the client, or -1 if it has none yet.
+     */
+    public long getAckedTick() {
+        return ackedTick;
+    }
+
+    /**
+     * Makes the next state frame a keyframe, e.g. when the client reports it lost its state.
+     */
+    public void requestResync() {
+        resyncRequested = true;
+    }
+
+    /**
+     * Returns and clears a pending resync request.
+     */
+    public boolean consumeResync() {
+        if (!resyncRequested) return false;
+        resyncRequested = false;
+        return true;
+    }
+}
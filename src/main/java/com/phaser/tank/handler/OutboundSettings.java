@@ -0,0 +1,31 @@
+package com.phaser.tank.handler;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Shared configuration of all outbound session queues.
+ */
+public class OutboundSettings {
+
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor writerExecutor;
+
+    public OutboundSettings(int capacity, OverflowPolicy overflowPolicy, Executor writerExecutor) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.writerExecutor = writerExecutor;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public Executor getWriterExecutor() {
+        return writerExecutor;
+    }
+}
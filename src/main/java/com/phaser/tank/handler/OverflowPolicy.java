@@ -0,0 +1,17 @@
+package com.phaser.tank.handler;
+
+/**
+ * What an {@link OutboundSession} does when a client cannot keep up and its queue is full.
+ */
+public enum OverflowPolicy {
+    /** Throw away every queued droppable frame and keep only the newest one. */
+    COALESCE,
+    /** Throw away the oldest queued droppable frame. */
+    DROP_OLDEST,
+    /** Close the connection of the slow client. */
+    DISCONNECT;
+
+    public static OverflowPolicy fromProperty(String value) {
+        return OverflowPolicy.valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+}
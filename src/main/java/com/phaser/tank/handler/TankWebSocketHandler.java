@@ -1,11 +1,15 @@
 package com.phaser.tank.handler;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.phaser.tank.model.BulletOrigin;
-import com.phaser.tank.model.Direction;
+import com.phaser.tank.input.InputCommand;
 import com.phaser.tank.model.Player;
 import com.phaser.tank.model.Room;
 import com.phaser.tank.manager.RoomManager;
+import com.phaser.tank.protocol.ClientMessageDecoder;
+import com.phaser.tank.protocol.ClientMessageDecoder.ClientMessage;
+import com.phaser.tank.protocol.WireFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
@@ -13,32 +17,47 @@ import java.util.*;
 
 public class TankWebSocketHandler extends TextWebSocketHandler {
 
-    private static final RoomManager roomManager = new RoomManager();
+    private static final Logger log = LoggerFactory.getLogger(TankWebSocketHandler.class);
     private static final ObjectMapper mapper = new ObjectMapper();
+    private static final ClientMessageDecoder decoder = new ClientMessageDecoder();
+
+    private final RoomManager roomManager;
+    private final OutboundSettings outboundSettings;
+
+    public TankWebSocketHandler(RoomManager roomManager, OutboundSettings outboundSettings) {
+        this.roomManager = roomManager;
+        this.outboundSettings = outboundSettings;
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         String uri = session.getUri().toString();
+        String path = session.getUri().getPath();
         String roomId;
 
-        if (uri.contains("/ws/create")) {
-            String level = "1";
-            if (uri.contains("?")) {
-                String query = uri.substring(uri.indexOf("?") + 1);
-                String[] params = query.split("&");
-                for (String param : params) {
-                    String[] pair = param.split("=");
-                    if (pair.length == 2 && pair[0].equals("level")) {
-                        level = pair[1];
-                        break;
-                    }
-                }
+        // Clients may ask for compact binary game_tick frames with ?protocol=binary
+        WireFormat wireFormat = WireFormat.fromParam(getQueryParam(uri, "protocol"));
+        OutboundSession outbound = new OutboundSession(session, outboundSettings);
+
+        if (path.contains("/ws/create")) {
+            String level = getQueryParam(uri, "level");
+            if (level == null) {
+                level = "1";
+            }
+
+            if (!roomManager.hasLevel(level)) {
+                rejectConnection(session, "Unknown level " + level);
+                return;
             }
 
             // Create room and get player
-            roomId = roomManager.createRoom(session, level);
+            roomId = roomManager.createRoom(outbound, level, wireFormat);
+            if (roomId == null) {
+                rejectConnection(session, "Server full, try again later");
+                return;
+            }
             Player player = roomManager.getPlayerBySession(session);
-            Room room = roomManager.getRoom(roomId);
+            Room room = roomManager.getRoomBySession(session);
 
             // Prepare playerEvents array including the creator himself
             List<Map<String, Object>> playerEvents = new ArrayList<>();
@@ -53,21 +72,22 @@ public class TankWebSocketHandler extends TextWebSocketHandler {
             }
 
             // Send start message with playerEvents to creator
-            session.sendMessage(new TextMessage(mapper.writeValueAsString(Map.of(
+            outbound.send(new TextMessage(mapper.writeValueAsString(Map.of(
                     "type", "start",
                     "playerId", player.getPlayerId(),
                     "roomId", roomId,
-                    "levelMap", room.getLevelMap(),
+                    "protocol", wireFormat.name().toLowerCase(),
+                    "levelMap", room.getLevel().toRows(),
                     "playerEvents", playerEvents
             ))));
 
-        } else if (uri.contains("/ws/join/")) {
-            roomId = uri.substring(uri.lastIndexOf('/') + 1);
-            boolean success = roomManager.joinRoom(roomId, session);
+        } else if (path.contains("/ws/join/")) {
+            roomId = path.substring(path.lastIndexOf('/') + 1);
+            boolean success = roomManager.joinRoom(roomId, outbound, wireFormat);
 
             if (success) {
                 Player newPlayer = roomManager.getPlayerBySession(session);
-                Room room = roomManager.getRoom(roomId);
+                Room room = roomManager.getRoomBySession(session);
 
                 List<Map<String, Object>> playerEvents = new ArrayList<>();
 
@@ -83,80 +103,92 @@ public class TankWebSocketHandler extends TextWebSocketHandler {
                 }
 
                 // Send to new player
-                session.sendMessage(new TextMessage(mapper.writeValueAsString(Map.of(
+                outbound.send(new TextMessage(mapper.writeValueAsString(Map.of(
                         "type", "start",
                         "playerId", newPlayer.getPlayerId(),
                         "roomId", roomId,
-                        "levelMap", room.getLevelMap(),
+                        "protocol", wireFormat.name().toLowerCase(),
+                        "levelMap", room.getLevel().toRows(),
                         "playerEvents", playerEvents
                 ))));
 
                 // Notify existing players about the new player
+                TextMessage spawnMessage = new TextMessage(mapper.writeValueAsString(Map.of(
+                        "type", "spawn_new_player",
+                        "playerId", newPlayer.getPlayerId(),
+                        "x", newPlayer.getX(),
+                        "y", newPlayer.getY(),
+                        "direction", newPlayer.getDirection()
+                )));
                 for (Player other : room.getPlayers()) {
                     if (!other.getSession().equals(session)) {
-                        other.getSession().sendMessage(new TextMessage(mapper.writeValueAsString(Map.of(
-                                "type", "spawn_new_player",
-                                "playerId", newPlayer.getPlayerId(),
-                                "x", newPlayer.getX(),
-                                "y", newPlayer.getY(),
-                                "direction", newPlayer.getDirection()
-                        ))));
+                        other.getOutbound().send(spawnMessage);
                     }
                 }
             } else {
-                session.sendMessage(new TextMessage(mapper.writeValueAsString(Map.of(
-                        "type", "error",
-                        "message", "Room full or not found"
-                ))));
-                session.close();
+                rejectConnection(session, "Room full, finished or not found");
             }
         }
     }
 
+    private void rejectConnection(WebSocketSession session, String reason) throws Exception {
+        session.sendMessage(new TextMessage(mapper.writeValueAsString(Map.of(
+                "type", "error",
+                "message", reason
+        ))));
+        session.close();
+    }
+
     @Override
     public void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        String roomId = roomManager.getRoomIdBySession(session);
-        if (roomId != null) {
-            Map<String, Object> msgMap = mapper.readValue(message.getPayload(), Map.class);
-
-            Player player = roomManager.getPlayerBySession(session);
-            if (player != null) {
-                msgMap.put("playerId", player.getPlayerId());
-            }
+        Room room = roomManager.getRoomBySession(session);
+        Player player = roomManager.getPlayerBySession(session);
+        if (room == null || player == null) return;
 
-            String type = (String) msgMap.get("type");
+        ClientMessage decoded;
+        try {
+            decoded = decoder.decode(message.getPayload());
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected message from session {}: {}", session.getId(), e.getMessage());
+            return;
+        }
 
-            if ("player_move".equals(type)) {
-                handlePlayerMove(roomId, player, msgMap);
-                return;
-            } else if ("fire_bullet".equals(type)) {
-                Room room = roomManager.getRoom(roomId);
-                if (room != null && player != null) {
-                    room.addBullet(player.getX(), player.getY(), player.getDirection(), BulletOrigin.PLAYER);
+        // Other players learn about moves and shots from the next game_tick, nothing is relayed
+        switch (decoded.getType()) {
+            case PLAYER_MOVE -> submit(room, InputCommand.move(player.getPlayerId(), decoded.getDirection()));
+            case FIRE_BULLET -> submit(room, InputCommand.fire(player.getPlayerId()));
+            // Client lost its state; next game_tick carries a full keyframe
+            case RESYNC -> player.getOutbound().requestResync();
+            // After a victory any player may move the room on; anyone else is told why not
+            case NEXT_LEVEL -> {
+                if (!roomManager.advanceLevel(room)) {
+                    log.info("Room {} cannot advance from level {}", room.getRoomId(), room.getLevelName());
+                    player.getOutbound().send(new TextMessage(mapper.writeValueAsString(Map.of(
+                            "type", "error",
+                            "message", "Cannot advance from level " + room.getLevelName()
+                    ))));
                 }
             }
-
-            // Broadcast to others
-            String broadcastMsg = mapper.writeValueAsString(msgMap);
-            roomManager.broadcast(roomId, new TextMessage(broadcastMsg), session);
         }
     }
 
-    private Direction getDirectionFromString(String directionStr) {
-        try {
-            return Direction.valueOf(directionStr.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Invalid direction: " + directionStr);
+    private String getQueryParam(String uri, String name) {
+        if (!uri.contains("?")) return null;
+
+        String query = uri.substring(uri.indexOf("?") + 1);
+        for (String param : query.split("&")) {
+            String[] pair = param.split("=");
+            if (pair.length == 2 && pair[0].equals(name)) {
+                return pair[1];
+            }
         }
+        return null;
     }
 
-    private void handlePlayerMove(String roomId, Player player, Map<String, Object> msgMap) {
-        if (player == null) return;
-
-        Direction direction = getDirectionFromString((String) msgMap.get("direction"));
-        Room room = roomManager.getRoom(roomId);
-        if (room != null) {
-            room.handlePlayerMove(player.getSession(), direction);
+    // Hands the command to the room's next tick; the I/O thread never touches game state
+    private void submit(Room room, long command) {
+        if (!room.submitInput(command)) {
+            log.warn("Input queue full in room {}, dropping command", room.getRoomId());
         }
     }
 
@@ -0,0 +1,43 @@
+package com.phaser.tank.input;
+
+import com.phaser.tank.model.Direction;
+
+/**
+ * Player input packed into a single long, so queueing a command allocates nothing.
+ *
+ * <pre>
+ * bits 0-7   command type
+ * bits 8-15  player id
+ * bits 16-23 direction ordinal (moves only)
+ * </pre>
+ */
+public final class InputCommand {
+
+    public static final int MOVE = 1;
+    public static final int FIRE = 2;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private InputCommand() {
+    }
+
+    public static long move(int playerId, Direction direction) {
+        return MOVE | (playerId & 0xFF) << 8 | (long) direction.ordinal() << 16;
+    }
+
+    public static long fire(int playerId) {
+        return FIRE | (playerId & 0xFF) << 8;
+    }
+
+    public static int type(long command) {
+        return (int) (command & 0xFF);
+    }
+
+    public static int playerId(long command) {
+        return (int) (command >>> 8 & 0xFF);
+    }
+
+    public static Direction direction(long command) {
+        return DIRECTIONS[(int) (command >>> 16 & 0xFF)];
+    }
+}
@@ -0,0 +1,79 @@
+package com.phaser.tank.input;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue of {@link InputCommand}s with many producers and one consumer.
+ * WebSocket threads offer commands without blocking; the room's simulation thread drains them
+ * at the start of each tick.
+ *
+ * Each slot carries a sequence number that says whether it is free for the producer that
+ * claimed it or filled for the consumer, so a producer never waits for another one to finish
+ * writing (a bounded queue in the style of Vyukov's MPMC queue, with a single-threaded head).
+ */
+public class InputQueue {
+
+    private final long[] commands;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Only touched by the consumer
+    private long head;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.commands = new long[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Queues the command; returns false if the queue is full.
+     */
+    public boolean offer(long command) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    commands[index] = command;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+            // Another producer claimed this slot first; retry with the new tail
+        }
+    }
+
+    /**
+     * Moves up to {@code out.length} queued commands into {@code out} in arrival order
+     * and returns how many were moved. Consumer thread only.
+     */
+    public int drainTo(long[] out) {
+        int count = 0;
+        while (count < out.length) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) break;
+
+            out[count++] = commands[index];
+            sequences.lazySet(index, head + commands.length);
+            head++;
+        }
+        return count;
+    }
+
+    public int capacity() {
+        return commands.length;
+    }
+}
@@ -1,78 +1,112 @@
 package com.phaser.tank.manager;
 
+import com.phaser.tank.event.EventType;
 import com.phaser.tank.model.Room;
 import com.phaser.tank.model.Player;
 import com.phaser.tank.model.Bonus;
 import com.phaser.tank.util.GameConstants;
 
 import java.util.*;
-import java.util.concurrent.*;
 
 public class BonusManager {
 
     private final Room room;
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
     private final Random random = new Random();
 
-    private final Map<String, Bonus> activeBonuses = new ConcurrentHashMap<>();
+    private final Map<Integer, Bonus> activeBonuses = new LinkedHashMap<>();
+
+    // Bonus cycle: a bonus lives for a while, then the next one appears after a pause
+    private boolean running = false;
+    private long nextSpawnTick;
+    private long expireTick;
+    // 0 while no bonus is waiting to expire
+    private int expiringBonusId;
 
     public BonusManager(Room room) {
         this.room = room;
     }
 
-    public void spawnBonus() {
+    public void start(long currentTick) {
+        running = true;
+        nextSpawnTick = currentTick;
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Stops the bonus cycle and drops every bonus without events, e.g. when the room moves to another level.
+     */
+    public void clear() {
+        stop();
+        for (Bonus bonus : activeBonuses.values()) {
+            room.releaseEntityId(bonus.getId());
+        }
+        activeBonuses.clear();
+        expiringBonusId = 0;
+    }
+
+    public void update(long tick) {
+        if (!running) return;
+
+        if (expiringBonusId != 0 && tick >= expireTick) {
+            expireBonus(expiringBonusId);
+            expiringBonusId = 0;
+            nextSpawnTick = tick + GameConstants.BONUS_RESPAWN_TICKS;
+        }
+
+        if (expiringBonusId == 0 && tick >= nextSpawnTick) {
+            spawnBonus(tick);
+        }
+    }
+
+    private void spawnBonus(long tick) {
         int x = random.nextInt(26); // 0 to 25
         int y = random.nextInt(26); // 0 to 25
 
         String bonusType = GameConstants.BONUS_TYPES.get(random.nextInt(GameConstants.BONUS_TYPES.size()));
 
-        String bonusId = UUID.randomUUID().toString();
-        Bonus bonus = new Bonus(bonusId, x, y, bonusType);
-        activeBonuses.put(bonusId, bonus);
+        Bonus bonus = new Bonus(room.nextEntityId(), x, y, bonusType);
+        activeBonuses.put(bonus.getId(), bonus);
 
         // Queue spawn event instead of broadcasting directly
-        room.queueBonusEvent(Map.of(
-                "event", "spawn",
-                "bonusId", bonus.getId(),
-                "x", bonus.getX(),
-                "y", bonus.getY(),
-                "bonusType", bonus.getType()
-        ));
-
-        scheduler.schedule(() -> {
-            activeBonuses.remove(bonusId);
-
-            // Queue remove event
-            room.queueBonusEvent(Map.of(
-                    "event", "remove",
-                    "bonusId", bonusId
-            ));
-
-            scheduleNextBonus();
-        }, 5, TimeUnit.SECONDS);
+        room.queueBonusEvent(EventType.BONUS_SPAWN, bonus, 0);
+
+        expiringBonusId = bonus.getId();
+        expireTick = tick + GameConstants.BONUS_LIFETIME_TICKS;
+    }
+
+    private void expireBonus(int bonusId) {
+        Bonus bonus = activeBonuses.remove(bonusId);
+        if (bonus == null) return; // already collected
+
+        // Queue remove event
+        room.queueBonusEvent(EventType.BONUS_REMOVE, bonus, 0);
+        room.releaseEntityId(bonusId);
+    }
+
+    public Collection<Bonus> getActiveBonuses() {
+        return activeBonuses.values();
     }
 
     public void checkBonusCollision(Player player) {
         int px = (int) player.getX(); // assume already tile coordinates
         int py = (int) player.getY();
 
-        for (Iterator<Map.Entry<String, Bonus>> it = activeBonuses.entrySet().iterator(); it.hasNext(); ) {
-            Map.Entry<String, Bonus> entry = it.next();
+        for (Iterator<Map.Entry<Integer, Bonus>> it = activeBonuses.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, Bonus> entry = it.next();
             Bonus bonus = entry.getValue();
 
-            int bx = (int) bonus.getX();
-            int by = (int) bonus.getY();
+            int bx = bonus.getX();
+            int by = bonus.getY();
 
             if (px == bx && py == by) {
                 it.remove();
 
                 // Queue collect event
-                room.queueBonusEvent(Map.of(
-                        "event", "collected",
-                        "playerId", player.getPlayerId(),
-                        "bonusId", bonus.getId(),
-                        "bonusType", bonus.getType()
-                ));
+                room.queueBonusEvent(EventType.BONUS_COLLECTED, bonus, player.getPlayerId());
+                room.releaseEntityId(bonus.getId());
 
                 applyBonusEffect(player, bonus.getType());
             }
@@ -95,8 +129,4 @@ public class BonusManager {
                 System.out.println("Bonus applied: " + type);
         }
     }
-
-    private void scheduleNextBonus() {
-        scheduler.schedule(this::spawnBonus, 6000, TimeUnit.MILLISECONDS);
-    }
 }
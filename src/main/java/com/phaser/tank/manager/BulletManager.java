@@ -1,150 +1,177 @@
 package com.phaser.tank.manager;
 
+import com.phaser.tank.event.EventType;
 import com.phaser.tank.model.*;
 import com.phaser.tank.util.*;
 
 import java.util.*;
-import java.util.concurrent.*;
-
-import static com.phaser.tank.util.Collisions.isBulletHittingTank;
 
 public class BulletManager {
 
     private final Room room;
-    private final Map<String, Bullet> activeBullets = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-    private ScheduledFuture<?> bulletUpdateTask;
-    private final Object lock = new Object();
+    // Only touched from the room's simulation step, so no synchronization needed
+    private final BulletStore bullets = new BulletStore();
+    // Bullets and tanks by cell, rebuilt at the start of every bullet step
+    private final CollisionGrid grid = new CollisionGrid(GameConstants.MAP_COLS, GameConstants.MAP_ROWS);
 
     public BulletManager(Room room) {
         this.room = room;
     }
 
     public void addBullet(int x, int y, Direction direction, BulletOrigin origin) {
-        Bullet bullet = new Bullet(x, y, direction, origin);
-        activeBullets.put(bullet.id, bullet);
+        int slot = bullets.add(room.nextEntityId(), x, y, direction, origin);
 
         // Queue bullet creation
-        room.queueBulletEvent(Map.of(
-                "action", "create",
-                "bulletId", bullet.id,
-                "x", x,
-                "y", y,
-                "direction", direction,
-                "origin", origin.name().toLowerCase()
-        ));
-
-        synchronized (lock) {
-            if (bulletUpdateTask == null || bulletUpdateTask.isCancelled() || bulletUpdateTask.isDone()) {
-                bulletUpdateTask = scheduler.scheduleAtFixedRate(this::updateBullets, 0, 50, TimeUnit.MILLISECONDS);
-            }
+        room.queueBulletEvent(EventType.BULLET_CREATE, bullets, slot);
+    }
+
+    public BulletStore getBullets() {
+        return bullets;
+    }
+
+    public void removeBullet(int bulletId) {
+        int slot = bullets.findByNetId(bulletId);
+        if (slot < 0) return;
+
+        bullets.destroy(slot);
+        room.queueBulletEvent(EventType.BULLET_DESTROY, bullets, slot);
+        room.releaseEntityId(bulletId);
+        bullets.removeDestroyed();
+    }
+
+    /**
+     * Drops every bullet without events, e.g. when the room moves to another level.
+     */
+    public void clear() {
+        for (int i = 0; i < bullets.size(); i++) {
+            room.releaseEntityId(bullets.getNetId(bullets.slotAt(i)));
         }
+        bullets.clear();
     }
 
-    public void removeBullet(String bulletId) {
-        activeBullets.remove(bulletId);
-        room.queueBulletEvent(Map.of(
-                "action", "destroy",
-                "bulletId", bulletId
-        ));
+    private void indexEntities() {
+        grid.clear();
+        grid.addBullets(bullets);
+        for (Player player : room.getPlayers()) {
+            grid.addPlayer(player);
+        }
+        for (Enemy enemy : room.getEnemies()) {
+            grid.addEnemy(enemy);
+        }
     }
 
-    private void updateBullets() {
-        Map<String, Bullet> bulletsToDestroy = Collisions.detectBulletCollisions(activeBullets.values());
+    /**
+     * Advances every bullet {@link GameConstants#BULLET_SPEED} tiles. The step is swept one tile
+     * at a time for all bullets together, so every tile a bullet passes is checked against
+     * walls, tanks, the base and other bullets, and two bullets flying head-on into each other
+     * collide even when they would swap tiles without sharing one. Clients get one move or
+     * destroy event per bullet per step.
+     */
+    public void updateBullets() {
+        if (bullets.isEmpty()) return;
+
+        for (int tile = 0; tile < GameConstants.BULLET_SPEED; tile++) {
+            if (!sweepOneTile()) break;
+        }
 
-        if (!bulletsToDestroy.isEmpty()) {
-            Bullet firstBullet = bulletsToDestroy.values().iterator().next();
-            room.queueExplosion(Map.of("x", firstBullet.x, "y", firstBullet.y));
+        for (int i = 0; i < bullets.size(); i++) {
+            int slot = bullets.slotAt(i);
+            if (bullets.isDestroyed(slot)) {
+                room.queueBulletEvent(EventType.BULLET_DESTROY, bullets, slot);
+                room.releaseEntityId(bullets.getNetId(slot));
+            } else {
+                room.queueBulletEvent(EventType.BULLET_MOVE, bullets, slot);
+            }
         }
+        bullets.removeDestroyed();
+    }
 
-        for (Iterator<Map.Entry<String, Bullet>> it = activeBullets.entrySet().iterator(); it.hasNext(); ) {
-            Map.Entry<String, Bullet> entry = it.next();
-            Bullet bullet = entry.getValue();
-            boolean hit = bulletsToDestroy.containsKey(bullet.id);
+    // Resolves hits for all travelling bullets at their current tile, then moves the survivors one tile.
+    // Returns false once no bullet is left travelling.
+    private boolean sweepOneTile() {
+        indexEntities();
 
-            for (Player player : room.getPlayers()) {
-                if (bullet.origin == BulletOrigin.ENEMY && player.isActive() && isBulletHittingTank(bullet.x, bullet.y, player.getX(), player.getY())) {
-                    hit = true;
-                    player.setHealth(player.getHealth() - 1);
+        boolean explosionQueued = false;
+        for (int i = 0; i < bullets.size(); i++) {
+            int slot = bullets.slotAt(i);
+            if (bullets.isDestroyed(slot)) continue;
 
-                    room.damagePlayer(player);
+            int x = bullets.getX(slot);
+            int y = bullets.getY(slot);
+            Direction direction = bullets.getDirection(slot);
+            BulletOrigin origin = bullets.getOrigin(slot);
 
-                    room.queueExplosion(Map.of("x", bullet.x, "y", bullet.y));
-                    break;
-                }
+            boolean hit = grid.isBulletColliding(slot) || grid.isBulletCrossing(slot);
+
+            // One explosion for all bullet-on-bullet hits on this tile step
+            if (hit && !explosionQueued) {
+                room.queueExplosion(x, y);
+                explosionQueued = true;
             }
 
-            for (Enemy enemy : room.getEnemies()) {
-                if (bullet.origin == BulletOrigin.PLAYER && isBulletHittingTank(bullet.x, bullet.y, enemy.getX(), enemy.getY())) {
-                    hit = true;
-                    room.damageEnemy(enemy);
-                    room.queueExplosion(Map.of("x", bullet.x, "y", bullet.y));
-                    break;
-                }
+            Player player = origin == BulletOrigin.ENEMY ? grid.findPlayerAt(x, y) : null;
+            if (player != null) {
+                hit = true;
+                player.setHealth(player.getHealth() - 1);
+
+                room.damagePlayer(player);
+
+                room.queueExplosion(x, y);
+            }
+
+            Enemy enemy = origin == BulletOrigin.PLAYER ? grid.findEnemyAt(x, y) : null;
+            if (enemy != null) {
+                hit = true;
+                room.damageEnemy(enemy);
+                room.queueExplosion(x, y);
             }
 
-            List<int[]> impactTiles = Collisions.getImpactTiles(bullet.x, bullet.y, bullet.direction);
+            List<int[]> impactTiles = Collisions.getImpactTiles(x, y, direction);
             for (int[] tilePos : impactTiles) {
                 int row = tilePos[0];
                 int col = tilePos[1];
-                char tileChar = room.getTile(col, row);
+                TileType tile = TileType.fromCode(room.getTile(col, row));
 
-                if (TileHelper.canDestoryBullet(tileChar)) {
+                if (tile.blocksBullets()) {
                     hit = true;
 
-                    if (TileHelper.tileMapping(tileChar).equals("brick")) {
-                        room.updateTile(col, row, '.');
-                        room.queueTileUpdate(Map.of("x", col, "y", row, "tile", "."));
+                    if (tile.isDestructible()) {
+                        room.updateTile(col, row, TileHelper.EMPTY);
 
-                        int[] next = EnemyMovementHelper.getNextPosition(bullet.x, bullet.y, bullet.direction);
+                        int[] next = EnemyMovementHelper.getNextPosition(x, y, direction);
                         int explosionX = next[0];
                         int explosionY = next[1];
                         if (MovementValidator.isWithinMapBounds(explosionX, explosionY)) {
-                            room.queueExplosion(Map.of("x", explosionX, "y", explosionY));
+                            room.queueExplosion(explosionX, explosionY);
                         }
                     }
                 }
             }
 
-            if (Collisions.isBulletCollidingWithBase(bullet.x, bullet.y)) {
+            if (Collisions.isBulletCollidingWithBase(x, y)) {
                 hit = true;
                 room.broadcast(Map.of(
                         "type", "base_destroyed",
                         "x", GameConstants.BASE_X,
                         "y",GameConstants.BASE_Y
                 ));
+                room.endMatch(MatchResult.DEFEAT, "base_destroyed");
             }
 
-            if (hit || MovementValidator.isOutOfBounds(bullet.x, bullet.y)) {
-                bullet.destroyed = true;
-            }
-
-            if (bullet.destroyed) {
-                it.remove();
-                room.queueBulletEvent(Map.of(
-                        "action", "destroy",
-                        "bulletId", bullet.id
-                ));
-            } else {
-                bullet.move();
-                room.queueBulletEvent(Map.of(
-                        "action", "move",
-                        "bulletId", bullet.id,
-                        "x", bullet.x,
-                        "y", bullet.y,
-                        "direction", bullet.direction
-                ));
+            if (hit || MovementValidator.isOutOfBounds(x, y)) {
+                bullets.destroy(slot);
             }
         }
 
-        // Stop scheduler if all bullets are cleared
-        if (activeBullets.isEmpty()) {
-            synchronized (lock) {
-                if (bulletUpdateTask != null && !bulletUpdateTask.isCancelled()) {
-                    bulletUpdateTask.cancel(false);
-                    bulletUpdateTask = null;
-                }
-            }
+        // Move only after every bullet was checked, so all of them are compared at the same moment
+        boolean travelling = false;
+        for (int i = 0; i < bullets.size(); i++) {
+            int slot = bullets.slotAt(i);
+            if (bullets.isDestroyed(slot)) continue;
+
+            bullets.move(slot);
+            travelling |= !bullets.isDestroyed(slot);
         }
+        return travelling;
     }
 }
@@ -1,174 +1,138 @@
 package com.phaser.tank.manager;
 
+import com.phaser.tank.event.EventType;
 import com.phaser.tank.model.BulletOrigin;
 import com.phaser.tank.model.Direction;
 import com.phaser.tank.model.Room;
 import com.phaser.tank.model.Enemy;
+import com.phaser.tank.model.MatchResult;
+import com.phaser.tank.model.Player;
 import com.phaser.tank.util.EnemyMovementHelper;
 import com.phaser.tank.util.EnemyPathFinder;
 import com.phaser.tank.util.EnemySpawner;
-import com.phaser.tank.util.MovementValidator;
+import com.phaser.tank.util.FlowField;
+import com.phaser.tank.util.GameConstants;
+import com.phaser.tank.util.OccupancyMap;
 
 import java.util.*;
-import java.util.concurrent.*;
 
 public class EnemyManager {
     private final Room room;
-    private final Map<String, Enemy> enemies = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
-    private static final int MAX_ENEMIES = 3;
-    private boolean movementScheduled = false;
+    private final Map<Integer, Enemy> enemies = new LinkedHashMap<>();
+    // 1 in N steps a roaming enemy turns toward the base
+    private static final int GOAL_SEEK_ODDS = 3;
+    // Hunters further than this from their target roam instead of planning a path
+    private static final int HUNT_RANGE = 16;
+    private boolean spawning = false;
+    private WaveDirector director;
     private final BulletManager bulletManager;
     private final Random random = new Random();
+    private final List<Enemy> enemiesToFire = new ArrayList<>();
+    // Enemies in spawn order and the one to step first next tick, so budget cuts rotate
+    private final List<Enemy> moveOrder = new ArrayList<>();
+    private int moveCursor = 0;
 
     public EnemyManager(Room room, BulletManager bulletManager) {
         this.room = room;
         this.bulletManager = bulletManager;
     }
 
-    public void startSpawning() {
-        System.out.println("[EnemyManager] Starting enemy spawn scheduler...");
-        scheduler.scheduleAtFixedRate(this::trySpawnEnemy, 3, 10, TimeUnit.SECONDS);
+    public void startSpawning(long currentTick) {
+        System.out.println("[EnemyManager] Starting enemy spawning...");
+        director = new WaveDirector(room.getWaveConfig());
+        director.start(currentTick);
+        spawning = true;
     }
 
-    private void trySpawnEnemy() {
-        try {
-            if (enemies.size() >= MAX_ENEMIES) return;
+    /**
+     * Advances enemies by one simulation tick: spawns when the wave director says so and
+     * steps every enemy whose own step period has come round.
+     */
+    public void update(long tick) {
+        if (!spawning) return;
+
+        if (director.isSpawnDue(tick, enemies.size())) {
+            trySpawnEnemy(tick);
+        }
+
+        if (!enemies.isEmpty()) {
+            moveEnemies(tick);
+        }
+
+        if (director.isCleared(enemies.size())) {
+            room.endMatch(MatchResult.VICTORY, "wave_cleared");
+        }
+    }
 
-            String enemyId = UUID.randomUUID().toString();
-            Enemy enemy = EnemySpawner.spawnEnemy(enemyId);
+    private void trySpawnEnemy(long tick) {
+        try {
+            Enemy enemy = EnemySpawner.spawnEnemy(room.nextEntityId());
 
             // Prevent spawn overlap
-            if (!MovementValidator.canOccupy(
-                    enemy.getX(),
-                    enemy.getY(),
-                    enemyId,
-                    null,
-                    enemies,
-                    room.getPlayerMap(),
-                    Set.of()
-            )) return;
-
-            enemies.put(enemyId, enemy);
-
-            // Optional: special path-following enemy
-            /*
+            if (!room.refreshOccupancy().isFree(enemy.getX(), enemy.getY())) {
+                room.releaseEntityId(enemy.getId());
+                return;
+            }
+
+            enemy.applyType(director.nextType());
+            enemy.setNextMoveTick(tick + enemy.getStepTicks());
+            enemies.put(enemy.getId(), enemy);
+            director.onSpawned();
+
+            // The first enemy of a wave hunts players instead of roaming
             if (enemies.size() == 1) {
-                int targetRow = 24;
-                int targetCol = 10;
-                Queue<int[]> path = EnemyPathFinder.findShortestPath(spawnRow, spawnCol, targetRow, targetCol, room.getLevelMap());
-                enemy.setPath(path);
                 enemy.setSpecial(true);
             }
-            */
-
-            room.queueEnemyEvent(Map.of(
-                    "action", "spawn",
-                    "enemyId", enemyId,
-                    "x", enemy.getX(),
-                    "y", enemy.getY(),
-                    "direction", enemy.getDirection()
-            ));
-
-            if (!movementScheduled) {
-                scheduler.scheduleAtFixedRate(this::moveEnemies, 1, 1, TimeUnit.SECONDS);
-                movementScheduled = true;
-            }
+
+            room.queueEnemyEvent(EventType.ENEMY_SPAWN, enemy);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private void moveEnemies() {
+    /**
+     * Steps the enemies that are due, within {@link GameConstants#AI_BUDGET_NANOS}.
+     * Past half the budget hunters stop planning paths and roam; past the whole budget the
+     * remaining enemies wait for the next tick, so an overloaded room slows its enemies down
+     * instead of overrunning the tick. Each tick starts where the previous one was cut off,
+     * so the same enemies are not always the ones left waiting.
+     */
+    private void moveEnemies(long tick) {
         try {
-            List<Enemy> enemiesToFire = new ArrayList<>();
-            List<String> levelMap = room.getLevelMap();
-            Set<String> reservedTiles = new HashSet<>();
-
-            for (Enemy enemy : enemies.values()) {
-                boolean moved = false;
-                int currentX = enemy.getX();
-                int currentY = enemy.getY();
-
-                if (enemy.isSpecial()) {
-                    Queue<int[]> path = enemy.getPath();
-                    if (path != null && !path.isEmpty()) {
-                        int[] nextTile = path.peek(); // look ahead
-                        int nextCol = nextTile[1];
-                        int nextRow = nextTile[0];
-
-                        if (MovementValidator.canMove(nextCol, nextRow, levelMap) &&
-                                MovementValidator.canOccupy(nextCol, nextRow, enemy.getId(), null, enemies, room.getPlayerMap(), reservedTiles)) {
-
-                            path.poll(); // actually take step
-                            Direction dir = EnemyMovementHelper.getDirection(currentX, currentY, nextCol, nextRow);
-                            enemy.setX(nextCol);
-                            enemy.setY(nextRow);
-                            enemy.setDirection(dir);
-                            moved = true;
-                            reserveTiles(reservedTiles, nextCol, nextRow);
-                        }
-                    }
-                } else if (!enemy.hasMoved()) {
-                    List<Direction> directionsToCheck = List.of(Direction.DOWN, Direction.LEFT, Direction.RIGHT);
-                    Direction chosenDir = EnemyMovementHelper.chooseRandomValidDirection(directionsToCheck, currentX, currentY, levelMap);
-
-                    if (chosenDir != null) {
-                        int[] next = EnemyMovementHelper.getNextPosition(currentX, currentY, chosenDir);
-
-                        if (MovementValidator.canOccupy(next[0], next[1], enemy.getId(), null, enemies, room.getPlayerMap(), reservedTiles)) {
-                            Direction actualDir = EnemyMovementHelper.getDirection(currentX, currentY, next[0], next[1]);
-
-                            enemy.setDirection(actualDir);
-                            enemy.setHasMoved(true);
-                            enemy.setX(next[0]);
-                            enemy.setY(next[1]);
-                            moved = true;
-                            reserveTiles(reservedTiles, next[0], next[1]);
-                        }
-                    }
+            long started = System.nanoTime();
+            OccupancyMap occupancy = null;
+            enemiesToFire.clear();
+
+            moveOrder.clear();
+            moveOrder.addAll(enemies.values());
+            int count = moveOrder.size();
+            int start = moveCursor % count;
+            moveCursor = start + 1;
+
+            for (int i = 0; i < count; i++) {
+                Enemy enemy = moveOrder.get((start + i) % count);
+                if (enemy.getNextMoveTick() > tick) continue;
+
+                long elapsed = System.nanoTime() - started;
+                if (elapsed > GameConstants.AI_BUDGET_NANOS) {
+                    // Out of budget: this enemy and the rest are still due and go first next tick
+                    moveCursor = start + i;
+                    break;
+                }
 
-                    if (!moved) {
-                        // Couldn't move, just set fallback dir
-                        Direction fallbackDir = directionsToCheck.get(random.nextInt(directionsToCheck.size()));
-                        enemy.setDirection(fallbackDir);
-                        enemy.setHasMoved(true);
-                    }
-                } else {
-                    int[] next = EnemyMovementHelper.getNextPosition(currentX, currentY, enemy.getDirection());
-                    boolean canMove = MovementValidator.canMove(next[0], next[1], levelMap) &&
-                            MovementValidator.canOccupy(next[0], next[1], enemy.getId(), null, enemies, room.getPlayerMap(), reservedTiles);
-
-                    if (canMove) {
-                        enemy.setX(next[0]);
-                        enemy.setY(next[1]);
-                        moved = true;
-                        reserveTiles(reservedTiles, next[0], next[1]);
-                    } else {
-                        List<Direction> directions = new ArrayList<>(List.of(Direction.values()));
-                        Collections.shuffle(directions);
-
-                        for (Direction dir : directions) {
-                            if (dir == enemy.getDirection()) continue;
-
-                            int[] tryPos = EnemyMovementHelper.getNextPosition(currentX, currentY, dir);
-                            if (MovementValidator.canMove(tryPos[0], tryPos[1], levelMap) &&
-                                    MovementValidator.canOccupy(tryPos[0], tryPos[1], enemy.getId(), null, enemies, room.getPlayerMap(), reservedTiles)) {
-                                enemy.setDirection(dir);
-                                break;
-                            }
-                        }
-                    }
+                if (occupancy == null) {
+                    occupancy = room.refreshOccupancy();
                 }
+                // Lift the enemy off the map while it decides, so it does not block itself
+                occupancy.removeTank(enemy.getX(), enemy.getY());
+
+                boolean moved = stepEnemy(enemy, occupancy, elapsed > GameConstants.AI_BUDGET_NANOS / 2);
+                enemy.setNextMoveTick(tick + enemy.getStepTicks());
+
+                occupancy.addTank(enemy.getX(), enemy.getY());
 
                 if (moved) {
-                    room.queueEnemyEvent(Map.of(
-                            "action", "move",
-                            "enemyId", enemy.getId(),
-                            "x", enemy.getX(),
-                            "y", enemy.getY(),
-                            "direction", enemy.getDirection()
-                    ));
+                    room.queueEnemyEvent(EventType.ENEMY_MOVE, enemy);
                 }
 
                 if (enemy.shouldFire()) {
@@ -184,39 +148,155 @@ public class EnemyManager {
                         BulletOrigin.ENEMY
                 );
             }
-
+            enemiesToFire.clear();
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private void reserveTiles(Set<String> reserved, int x, int y) {
-        for (int dx = 0; dx <= 1; dx++) {
-            for (int dy = 0; dy <= 1; dy++) {
-                reserved.add((x + dx) + "," + (y + dy));
+    // Decides and applies one enemy step; returns true if the enemy changed tile
+    private boolean stepEnemy(Enemy enemy, OccupancyMap occupancy, boolean cheap) {
+        FlowField flowField = room.getFlowField();
+        EnemyPathFinder pathFinder = room.getPathFinder();
+        boolean moved = false;
+        int currentX = enemy.getX();
+        int currentY = enemy.getY();
+
+        Player target = enemy.isSpecial() && !cheap ? nearestPlayer(currentX, currentY) : null;
+        if (target != null && Math.abs(target.getX() - currentX) + Math.abs(target.getY() - currentY) > HUNT_RANGE) {
+            target = null;
+        }
+
+        if (target != null) {
+            // Re-plan toward the nearest player every step; unchanged plans come from the cache
+            int[] path = pathFinder.findPath(currentX, currentY, target.getX(), target.getY());
+            if (path.length > 0) {
+                int nextCol = pathFinder.pathX(path[0]);
+                int nextRow = pathFinder.pathY(path[0]);
+
+                if (occupancy.canEnter(nextCol, nextRow)) {
+                    Direction dir = EnemyMovementHelper.getDirection(currentX, currentY, nextCol, nextRow);
+                    enemy.setX(nextCol);
+                    enemy.setY(nextRow);
+                    enemy.setDirection(dir);
+                    moved = true;
+                    occupancy.reserve(nextCol, nextRow);
+                }
+            }
+            if (!moved) {
+                enemy.setDirection(EnemyMovementHelper.getDirection(currentX, currentY, target.getX(), target.getY()));
+            }
+        } else if (!enemy.hasMoved()) {
+            List<Direction> directionsToCheck = List.of(Direction.DOWN, Direction.LEFT, Direction.RIGHT);
+            Direction chosenDir = EnemyMovementHelper.chooseRandomValidDirection(directionsToCheck, currentX, currentY, room.getLevel());
+
+            if (chosenDir != null) {
+                int[] next = EnemyMovementHelper.getNextPosition(currentX, currentY, chosenDir);
+
+                if (occupancy.isFree(next[0], next[1])) {
+                    Direction actualDir = EnemyMovementHelper.getDirection(currentX, currentY, next[0], next[1]);
+
+                    enemy.setDirection(actualDir);
+                    enemy.setHasMoved(true);
+                    enemy.setX(next[0]);
+                    enemy.setY(next[1]);
+                    moved = true;
+                    occupancy.reserve(next[0], next[1]);
+                }
+            }
+
+            if (!moved) {
+                // Couldn't move, just set fallback dir
+                Direction fallbackDir = directionsToCheck.get(random.nextInt(directionsToCheck.size()));
+                enemy.setDirection(fallbackDir);
+                enemy.setHasMoved(true);
+            }
+        } else if (flowField.isAtGoal(currentX, currentY)) {
+            // Close enough to the base: hold position and aim at it
+            enemy.setDirection(FlowField.directionToBase(currentX, currentY));
+        } else {
+            Direction towardBase = flowField.nextDirection(currentX, currentY);
+            if (towardBase != null && random.nextInt(GOAL_SEEK_ODDS) == 0) {
+                enemy.setDirection(towardBase);
+            }
+
+            int[] next = EnemyMovementHelper.getNextPosition(currentX, currentY, enemy.getDirection());
+            boolean canMove = occupancy.canEnter(next[0], next[1]);
+
+            if (canMove) {
+                enemy.setX(next[0]);
+                enemy.setY(next[1]);
+                moved = true;
+                occupancy.reserve(next[0], next[1]);
+            } else {
+                List<Direction> directions = new ArrayList<>(List.of(Direction.values()));
+                Collections.shuffle(directions);
+                // Try the way to the base first when blocked
+                if (towardBase != null) {
+                    directions.remove(towardBase);
+                    directions.add(0, towardBase);
+                }
+
+                for (Direction dir : directions) {
+                    if (dir == enemy.getDirection()) continue;
+
+                    int[] tryPos = EnemyMovementHelper.getNextPosition(currentX, currentY, dir);
+                    if (occupancy.canEnter(tryPos[0], tryPos[1])) {
+                        enemy.setDirection(dir);
+                        break;
+                    }
+                }
+            }
+        }
+        return moved;
+    }
+
+    private Player nearestPlayer(int x, int y) {
+        Player nearest = null;
+        int best = Integer.MAX_VALUE;
+        for (Player player : room.getPlayers()) {
+            if (!player.isActive() || player.isDestroyed()) continue;
+
+            int distance = Math.abs(player.getX() - x) + Math.abs(player.getY() - y);
+            if (distance < best) {
+                best = distance;
+                nearest = player;
             }
         }
+        return nearest;
     }
 
-    public void damageEnemy(String id, int amount) {
+    public void damageEnemy(int id, int amount) {
         Enemy enemy = enemies.get(id);
         if (enemy == null) return;
 
         enemy.damage(amount);
         if (enemy.isDestroyed()) {
             enemies.remove(id);
-            room.queueEnemyEvent(Map.of(
-                    "action", "destroy",
-                    "enemyId", id
-            ));
+            room.queueEnemyEvent(EventType.ENEMY_DESTROY, enemy);
+            room.releaseEntityId(id);
         }
     }
 
     public void shutdown() {
-        scheduler.shutdownNow();
+        spawning = false;
+    }
+
+    /**
+     * Stops spawning and drops every enemy without events, e.g. when the room moves to another level.
+     */
+    public void clear() {
+        shutdown();
+        for (Enemy enemy : enemies.values()) {
+            room.releaseEntityId(enemy.getId());
+        }
+        enemies.clear();
+        moveOrder.clear();
+        moveCursor = 0;
+        director = null;
     }
 
-    public Map<String, Enemy> getEnemies() {
+    public Map<Integer, Enemy> getEnemies() {
         return enemies;
     }
 }
@@ -0,0 +1,89 @@
+package com.phaser.tank.manager;
+
+import com.phaser.tank.model.Room;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide pool of simulation workers shared by all rooms.
+ * Each worker is a single thread, and every room is pinned to exactly one worker,
+ * so all of a room's tasks run sequentially while the total thread count stays
+ * fixed no matter how many rooms are open.
+ */
+public class GameScheduler {
+
+    private static final GameScheduler INSTANCE = new GameScheduler(Runtime.getRuntime().availableProcessors());
+
+    private final ScheduledExecutorService[] workers;
+    private final int[] roomCounts;
+    private final Map<Room, Integer> assignments = new HashMap<>();
+
+    GameScheduler(int workerCount) {
+        this.workers = new ScheduledExecutorService[workerCount];
+        this.roomCounts = new int[workerCount];
+
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "game-worker-" + counter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        for (int i = 0; i < workerCount; i++) {
+            ScheduledThreadPoolExecutor worker = new ScheduledThreadPoolExecutor(1, threadFactory);
+            // Drop a closed room's tick loop from the queue right away instead of at its next run
+            worker.setRemoveOnCancelPolicy(true);
+            workers[i] = worker;
+        }
+    }
+
+    public static GameScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Pins the room to the least loaded worker and starts its tick loop there.
+     */
+    public synchronized void register(Room room) {
+        if (assignments.containsKey(room)) return;
+
+        int worker = 0;
+        for (int i = 1; i < workers.length; i++) {
+            if (roomCounts[i] < roomCounts[worker]) {
+                worker = i;
+            }
+        }
+
+        roomCounts[worker]++;
+        assignments.put(room, worker);
+        room.attach(workers[worker]);
+    }
+
+    /**
+     * Cancels every task the room scheduled and frees its slot on the worker.
+     */
+    public synchronized void unregister(Room room) {
+        Integer worker = assignments.remove(room);
+        if (worker == null) return;
+
+        roomCounts[worker]--;
+        room.detach();
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    public synchronized int getRoomCount() {
+        return assignments.size();
+    }
+}
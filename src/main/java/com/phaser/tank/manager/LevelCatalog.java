@@ -0,0 +1,164 @@
+package com.phaser.tank.manager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phaser.tank.model.LevelGrid;
+import com.phaser.tank.model.WaveConfig;
+import com.phaser.tank.util.TileHelper;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Every level under classpath:levels, parsed and validated once when the class is first used.
+ * Levels are keyed by file name without the ".txt" extension, so "1.txt" and "18" are
+ * levels "1" and "18". Rooms get a {@link LevelGrid#copy()} of the shared read-only template.
+ *
+ * Enemy waves come from classpath:waves/&lt;level&gt;.json, falling back to waves/default.json.
+ */
+public class LevelCatalog {
+
+    private static final String LEVEL_PATTERN = "classpath*:levels/*";
+    private static final String WAVE_PATTERN = "classpath*:waves/*.json";
+    private static final String DEFAULT_WAVES = "default";
+    private static final int MAP_ROWS = 26;
+    private static final int MAP_COLS = 26;
+
+    private static final LevelCatalog INSTANCE = new LevelCatalog(LEVEL_PATTERN, WAVE_PATTERN);
+
+    private final Map<String, LevelGrid> templates;
+    private final Map<String, WaveConfig> waves;
+
+    LevelCatalog(String pattern, String wavePattern) {
+        Map<String, LevelGrid> parsed = new HashMap<>();
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver().getResources(pattern);
+            for (Resource resource : resources) {
+                String fileName = resource.getFilename();
+                if (fileName == null || !resource.isReadable()) continue;
+
+                String name = fileName.endsWith(".txt") ? fileName.substring(0, fileName.length() - 4) : fileName;
+                try {
+                    parsed.put(name, parse(resource));
+                } catch (Exception e) {
+                    System.err.println("Skipping level " + fileName + ": " + e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        this.templates = Map.copyOf(parsed);
+        this.waves = loadWaves(wavePattern);
+        System.out.println("Loaded " + templates.size() + " levels and " + waves.size() + " wave configs");
+    }
+
+    private static Map<String, WaveConfig> loadWaves(String pattern) {
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, WaveConfig> parsed = new HashMap<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(pattern)) {
+                String fileName = resource.getFilename();
+                if (fileName == null || !resource.isReadable()) continue;
+
+                try (InputStream in = resource.getInputStream()) {
+                    WaveConfig config = mapper.readValue(in, WaveConfig.class);
+                    if (config.getEnemyTypes() == null || config.getEnemyTypes().isEmpty()) {
+                        throw new IllegalArgumentException("no enemy types");
+                    }
+                    parsed.put(fileName.substring(0, fileName.length() - ".json".length()), config);
+                } catch (Exception e) {
+                    System.err.println("Skipping wave config " + fileName + ": " + e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return Map.copyOf(parsed);
+    }
+
+    public static LevelCatalog getInstance() {
+        return INSTANCE;
+    }
+
+    private static LevelGrid parse(Resource resource) throws Exception {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line.trim());
+            }
+        }
+        while (!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty()) {
+            lines.remove(lines.size() - 1);
+        }
+
+        if (lines.size() != MAP_ROWS) {
+            throw new IllegalArgumentException("expected " + MAP_ROWS + " rows but found " + lines.size());
+        }
+        for (int row = 0; row < lines.size(); row++) {
+            String line = lines.get(row);
+            if (line.length() != MAP_COLS) {
+                throw new IllegalArgumentException("row " + row + " has " + line.length() + " tiles, expected " + MAP_COLS);
+            }
+            for (int col = 0; col < line.length(); col++) {
+                if (TileHelper.toCode(line.charAt(col)) == TileHelper.UNKNOWN) {
+                    throw new IllegalArgumentException("unknown tile '" + line.charAt(col) + "' at " + col + "," + row);
+                }
+            }
+        }
+        return LevelGrid.fromRows(lines);
+    }
+
+    /**
+     * Read-only template of the level, or null if there is no such level.
+     */
+    public LevelGrid getTemplate(String name) {
+        return name != null ? templates.get(name) : null;
+    }
+
+    /**
+     * Wave config of the level, the default one if it has none.
+     */
+    public WaveConfig getWaveConfig(String name) {
+        WaveConfig config = name != null ? waves.get(name) : null;
+        if (config == null) config = waves.get(DEFAULT_WAVES);
+        return config != null ? config : new WaveConfig();
+    }
+
+    /**
+     * Level that follows the given one: the next higher level number, or null if it was the last
+     * or has no numeric name.
+     */
+    public String getNextLevel(String name) {
+        int current;
+        try {
+            current = Integer.parseInt(name);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        String next = null;
+        int nextNumber = Integer.MAX_VALUE;
+        for (String candidate : templates.keySet()) {
+            try {
+                int number = Integer.parseInt(candidate);
+                if (number > current && number < nextNumber) {
+                    next = candidate;
+                    nextNumber = number;
+                }
+            } catch (NumberFormatException ignored) {
+                // Named levels are only reachable directly
+            }
+        }
+        return next;
+    }
+
+    public boolean hasLevel(String name) {
+        return getTemplate(name) != null;
+    }
+}
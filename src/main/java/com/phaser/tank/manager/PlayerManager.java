@@ -1,16 +1,19 @@
 package com.phaser.tank.manager;
 
+import com.phaser.tank.event.EventType;
 import com.phaser.tank.model.Player;
 import com.phaser.tank.model.Room;
-import org.springframework.web.socket.WebSocketSession;
+import com.phaser.tank.util.GameConstants;
 
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class PlayerManager {
 
     private final List<Player> players = new CopyOnWriteArrayList<>();
+    // Player by id: slot i holds player i + 1
+    private final AtomicReferenceArray<Player> slots = new AtomicReferenceArray<>(GameConstants.MAX_PLAYERS);
     private final Room room;
 
     public PlayerManager(Room room) {
@@ -18,11 +21,15 @@ public class PlayerManager {
     }
 
     public void addPlayer(Player player) {
+        slots.set(player.getPlayerId() - 1, player);
         players.add(player);
     }
 
-    public void removePlayer(WebSocketSession session) {
-        players.removeIf(p -> p.getSession().equals(session));
+    public void removePlayer(Player player) {
+        if (players.remove(player)) {
+            slots.compareAndSet(player.getPlayerId() - 1, player, null);
+            player.getOutbound().close();
+        }
     }
 
     public void removePlayerById(int playerId) {
@@ -32,6 +39,16 @@ public class PlayerManager {
         }
     }
 
+    /**
+     * Lowest player id whose slot is free, or -1 if the room is full.
+     * Callers must hold the room's lock between this and {@link #addPlayer}.
+     */
+    public int nextFreePlayerId() {
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) == null) return i + 1;
+        }
+        return -1;
+    }
 
     public int getPlayerCount() {
         return players.size();
@@ -41,18 +58,9 @@ public class PlayerManager {
         return players;
     }
 
-    public Player getPlayerBySession(WebSocketSession session) {
-        return players.stream()
-                .filter(p -> p.getSession().equals(session))
-                .findFirst()
-                .orElse(null);
-    }
-
     public Player getPlayerById(int id) {
-        return players.stream()
-                .filter(p -> p.getPlayerId() == id)
-                .findFirst()
-                .orElse(null);
+        if (id < 1 || id > slots.length()) return null;
+        return slots.get(id - 1);
     }
 
     public void damagePlayer(int id, int amount) {
@@ -63,12 +71,8 @@ public class PlayerManager {
 
         if (player.isDestroyed()) {
             removePlayerById(id);
-            room.queuePlayerEvent(Map.of(
-                    "action", "destroy",
-                    "playerId", player.getPlayerId(),
-                    "x", player.getX(),
-                    "y", player.getY()
-            ));
+            room.queuePlayerEvent(EventType.PLAYER_DESTROY, player);
+            room.onPlayerDestroyed();
         }
     }
 }
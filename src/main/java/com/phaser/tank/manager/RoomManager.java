@@ -1,89 +1,156 @@
 package com.phaser.tank.manager;
 
+import com.phaser.tank.handler.OutboundSession;
+import com.phaser.tank.model.LevelGrid;
+import com.phaser.tank.model.MatchResult;
 import com.phaser.tank.model.Room;
 import com.phaser.tank.model.Player;
+import com.phaser.tank.model.RoomState;
+import com.phaser.tank.model.WaveConfig;
+import com.phaser.tank.protocol.WireFormat;
+import com.phaser.tank.util.GameConstants;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.*;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
 import java.util.*;
 import java.util.concurrent.*;
 
 public class RoomManager {
-    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
-    private final Map<WebSocketSession, String> sessionToRoom = new ConcurrentHashMap<>();
 
-    public String createRoom(WebSocketSession session, String level) {
-        String roomId = generateRoomId();
-        Room room = new Room(roomId);
-        room.addPlayer(new Player(session, 1));
+    private static final Logger log = LoggerFactory.getLogger(RoomManager.class);
 
-        // Load default level into the room
-        List<String>  levelMap = loadLevelMap("levels/" + level + ".txt");
-        room.setLevelMap(levelMap);
+    // Session attributes holding the session's room and player, so lookups need no map or scan
+    private static final String ROOM_ATTRIBUTE = "tank.room";
+    private static final String PLAYER_ATTRIBUTE = "tank.player";
+    // Room ids are the four-digit numbers 1000-9999
+    private static final int ROOM_ID_MIN = 1000;
+    private static final int ROOM_ID_COUNT = 9000;
+    // Random draws before falling back to a scan for a free id
+    private static final int RANDOM_ID_ATTEMPTS = 32;
 
-        rooms.put(roomId, room);
-        sessionToRoom.put(session, roomId);
-        return roomId;
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    private final GameScheduler scheduler = GameScheduler.getInstance();
+    private final LevelCatalog levels = LevelCatalog.getInstance();
+    private final Random random = new Random();
+    // Guarded by this; null while the reaper is not running
+    private ScheduledExecutorService reaper;
+
+    /**
+     * Starts the reaper that periodically closes abandoned, idle and finished rooms.
+     */
+    @PostConstruct
+    public synchronized void start() {
+        if (reaper != null) return;
+
+        reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "room-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reaper.scheduleWithFixedDelay(() -> {
+            try {
+                reapRooms(System.currentTimeMillis());
+            } catch (Exception e) {
+                log.warn("Reaping rooms failed", e);
+            }
+        }, GameConstants.ROOM_REAP_INTERVAL_MS, GameConstants.ROOM_REAP_INTERVAL_MS, TimeUnit.MILLISECONDS);
     }
 
-    public boolean joinRoom(String roomId, WebSocketSession session) {
-        Room room = rooms.get(roomId);
-        if (room != null && room.playerCount() < 4) {
-            int playerId = room.playerCount() + 1;
-            Player newPlayer = new Player(session, playerId);
-            room.addPlayer(newPlayer);
-            sessionToRoom.put(session, roomId);
-            return true;
+    /**
+     * Creates a room on the given level with the creator as player 1.
+     * Returns null if the level does not exist or every room id is taken.
+     */
+    public String createRoom(OutboundSession outbound, String level, WireFormat wireFormat) {
+        LevelGrid template = levels.getTemplate(level);
+        if (template == null) return null;
+
+        // A few random draws, then one pass over every id from a random start
+        int scanStart = random.nextInt(ROOM_ID_COUNT);
+        for (int attempt = 0; attempt < RANDOM_ID_ATTEMPTS + ROOM_ID_COUNT; attempt++) {
+            int offset = attempt < RANDOM_ID_ATTEMPTS
+                    ? random.nextInt(ROOM_ID_COUNT)
+                    : (scanStart + attempt) % ROOM_ID_COUNT;
+            String roomId = String.valueOf(ROOM_ID_MIN + offset);
+            if (rooms.containsKey(roomId)) continue;
+
+            Room room = new Room(roomId);
+
+            // Nobody can join before the creator is in: joinRoom waits for this lock
+            synchronized (room) {
+                if (rooms.putIfAbsent(roomId, room) != null) continue; // id taken, draw another
+
+                room.setLevel(level, template.copy());
+                room.setWaveConfig(levels.getWaveConfig(level));
+
+                scheduler.register(room);
+                addPlayer(room, new Player(outbound, 1, wireFormat));
+                return roomId;
+            }
         }
-        return false;
+        return null;
     }
 
-    public Player getPlayerBySession(WebSocketSession session) {
-        String roomId = sessionToRoom.get(session);
-        if (roomId == null) return null;
-
+    /**
+     * Adds a player to a waiting or running room. Returns false if the room does not exist,
+     * is full, or its match is over: a finished room no longer ticks, so a joiner would sit
+     * on a frozen board.
+     */
+    public boolean joinRoom(String roomId, OutboundSession outbound, WireFormat wireFormat) {
         Room room = rooms.get(roomId);
-        if (room == null) return null;
+        if (room == null) return false;
 
-        return room.getPlayers().stream()
-                .filter(p -> p.getSession().equals(session))
-                .findFirst()
-                .orElse(null);
-    }
+        synchronized (room) {
+            // The last player may have left and closed the room since the lookup
+            if (rooms.get(roomId) != room) return false;
+            RoomState state = room.getState();
+            if (state != RoomState.WAITING && state != RoomState.RUNNING) return false;
 
-    public Player getPlayer(String roomId, int playerId) {
-        Room room = rooms.get(roomId);
-        if (room == null) return null;
-        return room.getPlayers().stream()
-                .filter(p -> p.getPlayerId() == playerId)
-                .findFirst()
-                .orElse(null);
+            int playerId = room.nextFreePlayerId();
+            if (playerId < 0) return false;
+
+            addPlayer(room, new Player(outbound, playerId, wireFormat));
+            return true;
+        }
     }
 
-    public String getRoomIdBySession(WebSocketSession session) {
-        return sessionToRoom.get(session);
+    private void addPlayer(Room room, Player player) {
+        Map<String, Object> attributes = player.getSession().getAttributes();
+        attributes.put(ROOM_ATTRIBUTE, room);
+        attributes.put(PLAYER_ATTRIBUTE, player);
+        room.addPlayer(player);
     }
 
-    public void broadcast(String roomId, TextMessage message, WebSocketSession exclude) {
-        Room room = rooms.get(roomId);
-        if (room != null) {
-            for (Player player : room.getPlayers()) {
-                if (!player.getSession().equals(exclude)) {
-                    try {
-                        if (player.getSession().isOpen()) {
-                            player.getSession().sendMessage(message);
-                        }
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }
-            }
+    /**
+     * Moves a room whose match was won on to the next level. Returns false if the room is not
+     * finished with a victory, its level was the last one, or it is no longer scheduled.
+     */
+    public boolean advanceLevel(Room room) {
+        synchronized (room) {
+            if (room.getState() != RoomState.FINISHED || room.getMatchResult() != MatchResult.VICTORY) return false;
+
+            String current = room.getLevelName();
+            String next = levels.getNextLevel(current);
+            if (next == null) return false;
+
+            LevelGrid template = levels.getTemplate(next);
+            WaveConfig waves = levels.getWaveConfig(next);
+            return room.execute(() -> room.startLevel(current, next, template, waves));
         }
     }
 
-    public void notifyRoom(String roomId, WebSocketSession exclude, String infoMessage) {
-        broadcast(roomId, new TextMessage("{\"type\":\"info\",\"message\":\"" + infoMessage + "\"}"), exclude);
+    public boolean hasLevel(String level) {
+        return levels.hasLevel(level);
+    }
+
+    public Player getPlayerBySession(WebSocketSession session) {
+        return (Player) session.getAttributes().get(PLAYER_ATTRIBUTE);
+    }
+
+    public Room getRoomBySession(WebSocketSession session) {
+        return (Room) session.getAttributes().get(ROOM_ATTRIBUTE);
     }
 
     public Room getRoom(String roomId) {
@@ -91,36 +158,95 @@ public class RoomManager {
     }
 
     public void removeSession(WebSocketSession session) {
-        String roomId = sessionToRoom.remove(session);
-        if (roomId != null) {
-            Room room = rooms.get(roomId);
-            if (room != null) {
-                room.removePlayer(session);
-                if (room.playerCount() == 0) {
-                    // Shutdown room resources like bullet scheduler if needed
-                    rooms.remove(roomId);
+        Room room = (Room) session.getAttributes().remove(ROOM_ATTRIBUTE);
+        Player player = (Player) session.getAttributes().remove(PLAYER_ATTRIBUTE);
+        if (room == null || player == null) return;
+
+        synchronized (room) {
+            room.removePlayer(player);
+            if (room.playerCount() == 0) {
+                closeRoom(room, "empty");
+            }
+        }
+    }
+
+    /**
+     * Closes rooms nobody is playing in any more: rooms without an open connection, rooms
+     * that saw no input for {@link GameConstants#ROOM_IDLE_TIMEOUT_MS}, and finished rooms
+     * after {@link GameConstants#ROOM_FINISHED_LINGER_MS}. Returns how many were closed.
+     */
+    public int reapRooms(long nowMillis) {
+        int closed = 0;
+        for (Room room : rooms.values()) {
+            // Decide under the lock, so a room still being created or joined is never judged half-built
+            synchronized (room) {
+                String reason = reapReason(room, nowMillis);
+                if (reason != null) {
+                    closeRoom(room, reason);
+                    closed++;
                 }
             }
         }
+        return closed;
     }
 
-    private String generateRoomId() {
-        return String.valueOf(new Random().nextInt(9000) + 1000);
+    private String reapReason(Room room, long nowMillis) {
+        if (room.getState() == RoomState.CLOSED) return null;
+        if (!hasOpenSession(room)) return "abandoned";
+        if (room.getState() == RoomState.FINISHED
+                && nowMillis - room.getFinishedAtMillis() >= GameConstants.ROOM_FINISHED_LINGER_MS) {
+            return "finished";
+        }
+        if (nowMillis - room.getLastActivityMillis() >= GameConstants.ROOM_IDLE_TIMEOUT_MS) {
+            return "idle";
+        }
+        return null;
     }
 
-    private List<String> loadLevelMap(String path) {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                Objects.requireNonNull(getClass().getClassLoader().getResourceAsStream(path))))) {
+    private boolean hasOpenSession(Room room) {
+        for (Player player : room.getPlayers()) {
+            if (player.getSession().isOpen()) return true;
+        }
+        return false;
+    }
 
-            List<String> map = new ArrayList<>();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                map.add(line.trim());
+    // Called with the room's lock held. Disconnects whoever is left, stops the room's tasks
+    // and drops every reference the server keeps to the room.
+    private void closeRoom(Room room, String reason) {
+        if (room.getState() == RoomState.CLOSED) return;
+
+        rooms.remove(room.getRoomId(), room);
+
+        for (Player player : room.getPlayers()) {
+            WebSocketSession session = player.getSession();
+            session.getAttributes().remove(ROOM_ATTRIBUTE);
+            session.getAttributes().remove(PLAYER_ATTRIBUTE);
+            if (session.isOpen()) {
+                try {
+                    session.close(CloseStatus.GOING_AWAY.withReason("Room closed: " + reason));
+                } catch (Exception e) {
+                    log.warn("Closing session {} of room {} failed", session.getId(), room.getRoomId(), e);
+                }
             }
-            return map;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return List.of(); // fallback to empty map
         }
+        // Close first: its teardown is queued on the worker before unregistering detaches it
+        room.close();
+        scheduler.unregister(room);
+        log.info("Closed room {} ({})", room.getRoomId(), reason);
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    /**
+     * Stops the reaper. Rooms that are still open keep running.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (reaper == null) return;
+
+        reaper.shutdownNow();
+        reaper = null;
     }
 }
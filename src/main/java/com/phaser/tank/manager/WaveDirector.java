@@ -0,0 +1,76 @@
+package com.phaser.tank.manager;
+
+import com.phaser.tank.model.WaveConfig;
+import com.phaser.tank.util.GameConstants;
+
+import java.util.Random;
+
+/**
+ * Paces a room's enemy spawns from its level's {@link WaveConfig}: when the next spawn is due,
+ * how many may be alive at once, which enemy type comes next and when the stage has run out
+ * of enemies. Runs on the room's simulation thread.
+ */
+public class WaveDirector {
+
+    private final WaveConfig config;
+    private final int firstSpawnTicks;
+    private final int spawnIntervalTicks;
+    private final int totalWeight;
+    private final Random random = new Random();
+
+    private long nextSpawnTick = Long.MAX_VALUE;
+    private int spawned = 0;
+
+    public WaveDirector(WaveConfig config) {
+        this.config = config;
+        this.firstSpawnTicks = GameConstants.ticksFor(config.getFirstSpawnMs());
+        this.spawnIntervalTicks = GameConstants.ticksFor(config.getSpawnIntervalMs());
+
+        int weight = 0;
+        for (WaveConfig.EnemyType type : config.getEnemyTypes()) {
+            weight += Math.max(0, type.getWeight());
+        }
+        this.totalWeight = weight;
+    }
+
+    public void start(long tick) {
+        nextSpawnTick = tick + firstSpawnTicks;
+    }
+
+    /**
+     * True when a spawn attempt is due this tick. Each due attempt moves the schedule on,
+     * whether or not the enemy could actually be placed.
+     */
+    public boolean isSpawnDue(long tick, int alive) {
+        if (tick < nextSpawnTick) return false;
+
+        nextSpawnTick = tick + spawnIntervalTicks;
+        return hasMoreToSpawn() && alive < config.getMaxAlive();
+    }
+
+    public WaveConfig.EnemyType nextType() {
+        if (totalWeight <= 0) return config.getEnemyTypes().isEmpty() ? new WaveConfig.EnemyType() : config.getEnemyTypes().get(0);
+
+        int pick = random.nextInt(totalWeight);
+        for (WaveConfig.EnemyType type : config.getEnemyTypes()) {
+            pick -= Math.max(0, type.getWeight());
+            if (pick < 0) return type;
+        }
+        return config.getEnemyTypes().get(0);
+    }
+
+    public void onSpawned() {
+        spawned++;
+    }
+
+    public boolean hasMoreToSpawn() {
+        return config.getTotalEnemies() <= 0 || spawned < config.getTotalEnemies();
+    }
+
+    /**
+     * True once a finite stage has spawned all its enemies and none is left alive.
+     */
+    public boolean isCleared(int alive) {
+        return config.getTotalEnemies() > 0 && spawned >= config.getTotalEnemies() && alive == 0;
+    }
+}
@@ -1,27 +1,27 @@
 package com.phaser.tank.model;
 
 public class Bonus {
-    private final String id;
-    private final double x;
-    private final double y;
+    private final int id;
+    private final int x;
+    private final int y;
     private final String type;
 
-    public Bonus(String id, double x, double y, String type) {
+    public Bonus(int id, int x, int y, String type) {
         this.id = id;
         this.x = x;
         this.y = y;
         this.type = type;
     }
 
-    public String getId() {
+    public int getId() {
         return id;
     }
 
-    public double getX() {
+    public int getX() {
         return x;
     }
 
-    public double getY() {
+    public int getY() {
         return y;
     }
 
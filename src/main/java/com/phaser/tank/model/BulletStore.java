@@ -0,0 +1,185 @@
+package com.phaser.tank.model;
+
+import java.util.Arrays;
+
+/**
+ * All live bullets of a room as parallel primitive arrays indexed by slot.
+ *
+ * A bullet is a slot number; its fields live at that index of each array. Freed slots go on a
+ * free list and are reused by the next bullet, so once the arrays have grown to the room's
+ * peak bullet count creating a bullet allocates nothing. Live slots are also kept in a dense
+ * list in creation order, which is what the per-tick loops scan.
+ *
+ * Only used from the room's simulation thread.
+ */
+public class BulletStore {
+
+    // Tiles a bullet may travel before it expires
+    private static final int MAX_TRAVEL = 27;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final BulletOrigin[] ORIGINS = BulletOrigin.values();
+
+    private int[] netId;
+    private int[] x;
+    private int[] y;
+    private byte[] direction;
+    private byte[] origin;
+    private int[] traveled;
+    private boolean[] destroyed;
+
+    private int[] active;
+    private int activeCount;
+    private int[] free;
+    private int freeCount;
+    private int slotCount;
+
+    public BulletStore() {
+        this(32);
+    }
+
+    public BulletStore(int capacity) {
+        netId = new int[capacity];
+        x = new int[capacity];
+        y = new int[capacity];
+        direction = new byte[capacity];
+        origin = new byte[capacity];
+        traveled = new int[capacity];
+        destroyed = new boolean[capacity];
+        active = new int[capacity];
+        free = new int[capacity];
+    }
+
+    /**
+     * Stores a new bullet and returns its slot.
+     */
+    public int add(int id, int tileX, int tileY, Direction dir, BulletOrigin from) {
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            if (slotCount == netId.length) {
+                grow();
+            }
+            slot = slotCount++;
+        }
+
+        netId[slot] = id;
+        x[slot] = tileX;
+        y[slot] = tileY;
+        direction[slot] = (byte) dir.ordinal();
+        origin[slot] = (byte) from.ordinal();
+        traveled[slot] = 0;
+        destroyed[slot] = false;
+        active[activeCount++] = slot;
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = netId.length * 2;
+        netId = Arrays.copyOf(netId, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        direction = Arrays.copyOf(direction, capacity);
+        origin = Arrays.copyOf(origin, capacity);
+        traveled = Arrays.copyOf(traveled, capacity);
+        destroyed = Arrays.copyOf(destroyed, capacity);
+        active = Arrays.copyOf(active, capacity);
+        free = Arrays.copyOf(free, capacity);
+    }
+
+    /**
+     * Moves the bullet one tile along its direction; past its range it is marked destroyed.
+     */
+    public void move(int slot) {
+        switch (DIRECTIONS[direction[slot]]) {
+            case UP -> y[slot]--;
+            case DOWN -> y[slot]++;
+            case LEFT -> x[slot]--;
+            case RIGHT -> x[slot]++;
+        }
+
+        if (++traveled[slot] > MAX_TRAVEL) {
+            destroyed[slot] = true;
+        }
+    }
+
+    /**
+     * Frees every destroyed slot, keeping the remaining bullets in creation order.
+     */
+    public void removeDestroyed() {
+        int kept = 0;
+        for (int i = 0; i < activeCount; i++) {
+            int slot = active[i];
+            if (destroyed[slot]) {
+                free[freeCount++] = slot;
+            } else {
+                active[kept++] = slot;
+            }
+        }
+        activeCount = kept;
+    }
+
+    /**
+     * Slot of the live bullet with this net id, or -1.
+     */
+    public int findByNetId(int id) {
+        for (int i = 0; i < activeCount; i++) {
+            if (netId[active[i]] == id) return active[i];
+        }
+        return -1;
+    }
+
+    /**
+     * Frees every slot, keeping the arrays for the next bullets.
+     */
+    public void clear() {
+        for (int i = 0; i < activeCount; i++) {
+            free[freeCount++] = active[i];
+        }
+        activeCount = 0;
+    }
+
+    public int size() {
+        return activeCount;
+    }
+
+    public boolean isEmpty() {
+        return activeCount == 0;
+    }
+
+    /**
+     * Slot of the i-th live bullet in creation order.
+     */
+    public int slotAt(int index) {
+        return active[index];
+    }
+
+    public int getNetId(int slot) {
+        return netId[slot];
+    }
+
+    public int getX(int slot) {
+        return x[slot];
+    }
+
+    public int getY(int slot) {
+        return y[slot];
+    }
+
+    public Direction getDirection(int slot) {
+        return DIRECTIONS[direction[slot]];
+    }
+
+    public BulletOrigin getOrigin(int slot) {
+        return ORIGINS[origin[slot]];
+    }
+
+    public boolean isDestroyed(int slot) {
+        return destroyed[slot];
+    }
+
+    public void destroy(int slot) {
+        destroyed[slot] = true;
+    }
+}
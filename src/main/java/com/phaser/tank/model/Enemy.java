@@ -1,24 +1,32 @@
 package com.phaser.tank.model;
 
+import com.phaser.tank.util.GameConstants;
+
 import java.util.*;
 
 public class Enemy {
 
-    private final String id;
+    private final int id;
     private int x;
     private int y;
     private Direction direction;
     private int health = 1;
     private boolean hasMoved = false;
 
+    // Set from the wave config's enemy type
+    private String type = "basic";
+    private int stepTicks = GameConstants.ticksFor(1000);
+    private double fireChance = 0.2;
+    private long nextMoveTick = 0;
+
     // Special enemy support
     private boolean isSpecial = false;
-    private Queue<int[]> path = new LinkedList<>();
 
     // Random firing behavior
     private static final Random random = new Random();
+    private static final double SPECIAL_FIRE_CHANCE = 0.3;
 
-    public Enemy(String id, int x, int y, Direction direction) {
+    public Enemy(int id, int x, int y, Direction direction) {
         this.id = id;
         this.x = x;
         this.y = y;
@@ -27,7 +35,7 @@ public class Enemy {
 
     // === Basic Getters/Setters ===
 
-    public String getId() {
+    public int getId() {
         return id;
     }
 
@@ -79,6 +87,31 @@ public class Enemy {
         this.hasMoved = hasMoved;
     }
 
+    // === Enemy Type ===
+
+    public void applyType(WaveConfig.EnemyType enemyType) {
+        this.type = enemyType.getName();
+        this.health = Math.max(1, enemyType.getHealth());
+        this.stepTicks = Math.max(1, GameConstants.ticksFor(enemyType.getStepMs()));
+        this.fireChance = enemyType.getFireChance();
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public int getStepTicks() {
+        return stepTicks;
+    }
+
+    public long getNextMoveTick() {
+        return nextMoveTick;
+    }
+
+    public void setNextMoveTick(long nextMoveTick) {
+        this.nextMoveTick = nextMoveTick;
+    }
+
     // === Special Enemy Support ===
 
     public boolean isSpecial() {
@@ -89,32 +122,24 @@ public class Enemy {
         this.isSpecial = special;
     }
 
-    public Queue<int[]> getPath() {
-        return path;
-    }
-
-    public void setPath(Queue<int[]> path) {
-        this.path = path;
-    }
-
     // === Randomized Fire Check ===
 
     public boolean shouldFire() {
-        double chance = isSpecial ? 0.3 : 0.2; // 30% for special, 20% for normal
+        double chance = isSpecial ? Math.max(SPECIAL_FIRE_CHANCE, fireChance) : fireChance;
         return random.nextDouble() < chance;
     }
 
     @Override
     public String toString() {
         return "Enemy{" +
-                "id='" + id + '\'' +
+                "id=" + id +
+                ", type='" + type + '\'' +
                 ", x=" + x +
                 ", y=" + y +
                 ", direction=" + direction +
                 ", health=" + health +
                 ", hasMoved=" + hasMoved +
                 ", isSpecial=" + isSpecial +
-                ", path=" + path +
                 '}';
     }
 }
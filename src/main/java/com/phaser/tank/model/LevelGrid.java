@@ -0,0 +1,203 @@
+package com.phaser.tank.model;
+
+import com.phaser.tank.util.TileHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tile map of a level stored as a flat byte array of {@link TileHelper} tile codes,
+ * indexed by {@code y * cols + x}.
+ *
+ * Parsed levels are read-only templates; each room works on its own {@link #copy()}.
+ * A room's grid remembers which cells changed since the last {@link #clearDirty()},
+ * which is what drives the tile updates sent to clients.
+ *
+ * Alongside the tiles the grid keeps a clearance map: whether a 2x2 tank whose bottom-right
+ * tile is (x, y) fits there, i.e. tiles x-1..x of rows y-1..y are inside the map and drivable.
+ * A tile change only affects the four positions whose body covers that tile, so only those
+ * are recomputed.
+ */
+public class LevelGrid {
+
+    private final int rows;
+    private final int cols;
+    private final byte[] tiles;
+    private final boolean[] clearance;
+    private final boolean readOnly;
+
+    // Cells changed since the last clearDirty(), each listed once
+    private final boolean[] dirty;
+    private final int[] dirtyCells;
+    private int dirtyCount;
+    // Bumped on every change, lets derived data tell whether it is stale
+    private long version;
+
+    private LevelGrid(int rows, int cols, byte[] tiles, boolean[] clearance, boolean readOnly) {
+        this.rows = rows;
+        this.cols = cols;
+        this.tiles = tiles;
+        this.clearance = clearance;
+        this.readOnly = readOnly;
+        this.dirty = readOnly ? null : new boolean[tiles.length];
+        this.dirtyCells = readOnly ? null : new int[tiles.length];
+    }
+
+    /**
+     * Builds a read-only template from text rows. Short rows are padded with empty tiles.
+     */
+    public static LevelGrid fromRows(List<String> lines) {
+        int rows = lines.size();
+        int cols = 0;
+        for (String line : lines) {
+            cols = Math.max(cols, line.length());
+        }
+
+        byte[] tiles = new byte[rows * cols];
+        Arrays.fill(tiles, TileHelper.EMPTY);
+        for (int y = 0; y < rows; y++) {
+            String line = lines.get(y);
+            for (int x = 0; x < line.length(); x++) {
+                tiles[y * cols + x] = TileHelper.toCode(line.charAt(x));
+            }
+        }
+        LevelGrid template = new LevelGrid(rows, cols, tiles, new boolean[rows * cols], true);
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                template.updateClearance(x, y);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * A mutable copy for one room.
+     */
+    public LevelGrid copy() {
+        return new LevelGrid(rows, cols, tiles.clone(), clearance.clone(), false);
+    }
+
+    /**
+     * Overwrites this room grid with another level of the same size, reusing its arrays.
+     * Pending tile changes are dropped; clients reload the whole map after a level change.
+     */
+    public void loadFrom(LevelGrid template) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Level templates are read-only");
+        }
+        if (template.rows != rows || template.cols != cols) {
+            throw new IllegalArgumentException("Level size " + template.cols + "x" + template.rows
+                    + " does not match " + cols + "x" + rows);
+        }
+
+        System.arraycopy(template.tiles, 0, tiles, 0, tiles.length);
+        System.arraycopy(template.clearance, 0, clearance, 0, clearance.length);
+        clearDirty();
+        version++;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public boolean isWithinBounds(int x, int y) {
+        return x >= 0 && x < cols && y >= 0 && y < rows;
+    }
+
+    /**
+     * Tile code at (x, y), or {@link TileHelper#UNKNOWN} outside the map.
+     */
+    public byte get(int x, int y) {
+        if (!isWithinBounds(x, y)) return TileHelper.UNKNOWN;
+        return tiles[y * cols + x];
+    }
+
+    public char getChar(int x, int y) {
+        return TileHelper.toChar(get(x, y));
+    }
+
+    public void set(int x, int y, byte code) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Level templates are read-only");
+        }
+        if (!isWithinBounds(x, y)) return;
+
+        int index = y * cols + x;
+        if (tiles[index] == code) return;
+
+        tiles[index] = code;
+        version++;
+        updateClearance(x, y);
+        updateClearance(x + 1, y);
+        updateClearance(x, y + 1);
+        updateClearance(x + 1, y + 1);
+        if (!dirty[index]) {
+            dirty[index] = true;
+            dirtyCells[dirtyCount++] = index;
+        }
+    }
+
+    /**
+     * True if a tank with its bottom-right tile at (x, y) fits on drivable tiles.
+     */
+    public boolean canStand(int x, int y) {
+        if (!isWithinBounds(x, y)) return false;
+        return clearance[y * cols + x];
+    }
+
+    private void updateClearance(int x, int y) {
+        if (!isWithinBounds(x, y)) return;
+
+        clearance[y * cols + x] = x >= 1 && y >= 1
+                && TileHelper.isWalkable(tiles[(y - 1) * cols + x - 1])
+                && TileHelper.isWalkable(tiles[(y - 1) * cols + x])
+                && TileHelper.isWalkable(tiles[y * cols + x - 1])
+                && TileHelper.isWalkable(tiles[y * cols + x]);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // ===== Dirty tracking =====
+    public int getDirtyCount() {
+        return dirtyCount;
+    }
+
+    public int getDirtyX(int i) {
+        return dirtyCells[i] % cols;
+    }
+
+    public int getDirtyY(int i) {
+        return dirtyCells[i] / cols;
+    }
+
+    public void clearDirty() {
+        for (int i = 0; i < dirtyCount; i++) {
+            dirty[dirtyCells[i]] = false;
+        }
+        dirtyCount = 0;
+    }
+
+    // ===== Text form =====
+    public String rowString(int y) {
+        char[] chars = new char[cols];
+        for (int x = 0; x < cols; x++) {
+            chars[x] = TileHelper.toChar(tiles[y * cols + x]);
+        }
+        return new String(chars);
+    }
+
+    public List<String> toRows() {
+        List<String> lines = new ArrayList<>(rows);
+        for (int y = 0; y < rows; y++) {
+            lines.add(rowString(y));
+        }
+        return lines;
+    }
+}
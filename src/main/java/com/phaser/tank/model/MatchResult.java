@@ -0,0 +1,9 @@
+package com.phaser.tank.model;
+
+/**
+ * How a room's match ended.
+ */
+public enum MatchResult {
+    VICTORY,
+    DEFEAT
+}
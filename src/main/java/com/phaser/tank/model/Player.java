@@ -1,5 +1,7 @@
 package com.phaser.tank.model;
 
+import com.phaser.tank.handler.OutboundSession;
+import com.phaser.tank.protocol.WireFormat;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.util.Random;
@@ -8,7 +10,9 @@ public class Player {
     private static final Random RANDOM = new Random();
 
     private final WebSocketSession session;
+    private final OutboundSession outbound;
     private final int playerId;
+    private final WireFormat wireFormat;
 
     private int x;
     private int y;
@@ -21,9 +25,11 @@ public class Player {
     private int bulletCount = 0;     // Number of bullets fired or active
     private int maxBullets = 1;      // Max allowed bullets on screen
 
-    public Player(WebSocketSession session, int playerId) {
-        this.session = session;
+    public Player(OutboundSession outbound, int playerId, WireFormat wireFormat) {
+        this.session = outbound.getSession();
+        this.outbound = outbound;
         this.playerId = playerId;
+        this.wireFormat = wireFormat;
 
         assignInitialState(playerId);
     }
@@ -49,14 +55,33 @@ public class Player {
     }
 
 
+    /**
+     * Puts the player back at its spawn point for a new level. Dead players come back with
+     * one life, upgrades collected so far are kept.
+     */
+    public void respawn() {
+        assignInitialState(playerId);
+        health = Math.max(health, 1);
+        bulletCount = 0;
+        active = true;
+    }
+
     public WebSocketSession getSession() {
         return session;
     }
 
+    public OutboundSession getOutbound() {
+        return outbound;
+    }
+
     public int getPlayerId() {
         return playerId;
     }
 
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
     public int getId() {
         return  playerId;
     }
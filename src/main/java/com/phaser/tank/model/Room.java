@@ -1,26 +1,61 @@
 package com.phaser.tank.model;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phaser.tank.event.EventType;
+import com.phaser.tank.handler.OutboundSession;
+import com.phaser.tank.input.InputCommand;
+import com.phaser.tank.input.InputQueue;
+import com.phaser.tank.event.GameEvent;
+import com.phaser.tank.event.TickEvents;
 import com.phaser.tank.manager.BonusManager;
 import com.phaser.tank.manager.BulletManager;
 import com.phaser.tank.manager.EnemyManager;
 import com.phaser.tank.manager.PlayerManager;
+import com.phaser.tank.protocol.BinaryTickEncoder;
+import com.phaser.tank.protocol.BroadcastStats;
+import com.phaser.tank.protocol.JsonTickEncoder;
+import com.phaser.tank.protocol.WireFormat;
+import com.phaser.tank.snapshot.SnapshotDelta;
+import com.phaser.tank.snapshot.SnapshotHistory;
+import com.phaser.tank.snapshot.WorldSnapshot;
 import com.phaser.tank.util.EnemyMovementHelper;
-import com.phaser.tank.util.MovementValidator;
-import com.phaser.tank.util.TileHelper;
+import com.phaser.tank.util.EnemyPathFinder;
+import com.phaser.tank.util.EntityIdAllocator;
+import com.phaser.tank.util.FlowField;
+import com.phaser.tank.util.GameConstants;
+import com.phaser.tank.util.OccupancyMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.WebSocketMessage;
 
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
 
-public class Room {
+public final class Room {
+
+    private static final Logger log = LoggerFactory.getLogger(Room.class);
 
     private final String roomId;
-    private List<String> levelMap;
-    private boolean spawningStarted = false;
+    // This room's own copy of the level; changed cells become tile updates at the end of the tick
+    private LevelGrid level;
+    private String levelName;
+    // Distances to the base over the level, kept in step with tile changes
+    private FlowField flowField;
+    private EnemyPathFinder pathFinder;
+    private WaveConfig waveConfig = new WaveConfig();
+    // Moved by I/O threads, the simulation thread and the reaper, so every transition is a CAS
+    private final AtomicReference<RoomState> state = new AtomicReference<>(RoomState.WAITING);
+    // Wall-clock times used by the room reaper
+    private volatile long lastActivityMillis = System.currentTimeMillis();
+    private volatile long finishedAtMillis;
+    private volatile MatchResult matchResult;
+    private ScheduledFuture<?> tickLoop;
+    // Sent once the tick that ended the match has gone out
+    private Map<String, Object> pendingGameOver;
+    private long tick = 0;
 
     private final PlayerManager playerManager;
     private final BulletManager bulletManager;
@@ -28,15 +63,29 @@ public class Room {
     private final EnemyManager enemyManager;
 
     private final ObjectMapper mapper = new ObjectMapper();
-    private final ScheduledExecutorService tickExecutor = Executors.newSingleThreadScheduledExecutor();
-    private final Map<WebSocketSession, ReentrantLock> sessionLocks = new ConcurrentHashMap<>();
-    // Queues for batching
-    private final List<Map<String, Object>> bulletQueue = Collections.synchronizedList(new ArrayList<>());
-    private final List<Map<String, Object>> bonusQueue = Collections.synchronizedList(new ArrayList<>());
-    private final List<Map<String, Object>> tileQueue = Collections.synchronizedList(new ArrayList<>());
-    private final List<Map<String, Object>> explosionQueue = Collections.synchronizedList(new ArrayList<>());
-    private final List<Map<String, Object>> enemyQueue = Collections.synchronizedList(new ArrayList<>());
-    private final List<Map<String, Object>> playerQueue = Collections.synchronizedList(new ArrayList<>());
+    // Worker assigned by GameScheduler; every task of this room runs on it
+    private volatile ScheduledExecutorService executor;
+    // Guarded by itself, together with clearing executor, so no task is added after detach()
+    private final Set<ScheduledFuture<?>> scheduledTasks = new HashSet<>();
+    // Events batched for the next game_tick, written and drained on the simulation thread
+    private final TickEvents events = new TickEvents();
+    private final JsonTickEncoder tickEncoder = new JsonTickEncoder();
+    private final BinaryTickEncoder binaryTickEncoder = new BinaryTickEncoder();
+    private final EntityIdAllocator entityIds = new EntityIdAllocator();
+    // Player commands from the WebSocket threads, applied at the start of each tick
+    private final InputQueue inputs = new InputQueue(GameConstants.INPUT_QUEUE_CAPACITY);
+    private final long[] inputBatch = new long[GameConstants.INPUT_QUEUE_CAPACITY];
+    // Index in inputBatch of each player's last move by player id, so only that one is applied
+    private final int[] lastMove = new int[256];
+    private final BroadcastStats broadcastStats = new BroadcastStats();
+    private final SnapshotHistory snapshots = new SnapshotHistory(GameConstants.SNAPSHOT_HISTORY);
+    private final SnapshotDelta delta = new SnapshotDelta();
+    private final OccupancyMap occupancy = new OccupancyMap(GameConstants.MAP_COLS, GameConstants.MAP_ROWS);
+    // Frames encoded during the current tick, one per (wire format, baseline) pair
+    private WireFormat[] encodedFormats = new WireFormat[4];
+    private long[] encodedBaselines = new long[4];
+    private Object[] encodedPayloads = new Object[4];
+    private int encodedCount;
 
     public Room(String roomId) {
         this.roomId = roomId;
@@ -44,50 +93,270 @@ public class Room {
         this.bulletManager = new BulletManager(this);
         this.bonusManager = new BonusManager(this);
         this.enemyManager = new EnemyManager(this, this.bulletManager);
+    }
 
+    // ===== Scheduling =====
+    public void attach(ScheduledExecutorService executor) {
+        this.executor = executor;
         startGameTickLoop();
     }
 
+    public void detach() {
+        synchronized (scheduledTasks) {
+            executor = null;
+            for (ScheduledFuture<?> task : scheduledTasks) {
+                task.cancel(false);
+            }
+            scheduledTasks.clear();
+        }
+    }
+
+    /**
+     * Runs the task on this room's simulation thread, in between ticks.
+     * Anything that mutates game state from outside the tick must go through here.
+     * Returns false, and drops the task, if the room is not registered with a scheduler.
+     */
+    public boolean execute(Runnable task) {
+        ScheduledExecutorService current = executor;
+        if (current == null) return false;
+        current.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+        return true;
+    }
+
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        synchronized (scheduledTasks) {
+            ScheduledFuture<?> future = requireExecutor().scheduleAtFixedRate(task, initialDelay, period, unit);
+            scheduledTasks.removeIf(Future::isDone);
+            scheduledTasks.add(future);
+            return future;
+        }
+    }
+
+    private ScheduledExecutorService requireExecutor() {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            throw new IllegalStateException("Room " + roomId + " is not registered with a scheduler");
+        }
+        return current;
+    }
+
     public void addPlayer(Player player) {
         playerManager.addPlayer(player);
+        touch();
 
-        queuePlayerEvent(Map.of(
-                "action", "spawn",
-                "playerId", player.getPlayerId(),
-                "x", player.getX(),
-                "y", player.getY(),
-                "direction", player.getDirection()
-        ));
+        execute(() -> queuePlayerEvent(EventType.PLAYER_SPAWN, player));
+
+        startIfReady();
+    }
 
-        if (playerManager.getPlayerCount() == 2 && !spawningStarted) {
-            bonusManager.spawnBonus();
-            enemyManager.startSpawning();
-            spawningStarted = true;
+    // Starts the match once two players are in; whichever thread wins the CAS starts it
+    private void startIfReady() {
+        if (playerManager.getPlayerCount() >= 2 && state.compareAndSet(RoomState.WAITING, RoomState.RUNNING)) {
+            execute(() -> {
+                bonusManager.start(tick);
+                enemyManager.startSpawning(tick);
+            });
         }
     }
 
-    public void removePlayer(WebSocketSession session) {
-        playerManager.removePlayer(session);
-        sessionLocks.remove(session);
+    public void removePlayer(Player player) {
+        playerManager.removePlayer(player);
         if (playerManager.getPlayerCount() == 0) {
-            enemyManager.shutdown();
+            execute(() -> {
+                bonusManager.stop();
+                enemyManager.shutdown();
+            });
+        } else {
+            // The one who left may have been the last player still alive
+            execute(this::checkDefeat);
         }
     }
 
+    // ===== Lifecycle =====
+    public RoomState getState() {
+        return state.get();
+    }
+
+    public MatchResult getMatchResult() {
+        return matchResult;
+    }
+
+    /**
+     * Ends the match. Enemies and bonuses stop at once; the current tick still goes out so
+     * clients see the final hits, then the tick loop stops and players get a game_over.
+     * Simulation thread only.
+     */
+    public void endMatch(MatchResult result, String reason) {
+        while (true) {
+            RoomState current = state.get();
+            if (current != RoomState.WAITING && current != RoomState.RUNNING) return;
+
+            // Result first: other threads that see FINISHED must also see how it ended
+            matchResult = result;
+            finishedAtMillis = System.currentTimeMillis();
+            if (state.compareAndSet(current, RoomState.FINISHED)) break;
+        }
+        bonusManager.stop();
+        enemyManager.shutdown();
+
+        Map<String, Object> gameOver = new HashMap<>();
+        gameOver.put("type", "game_over");
+        gameOver.put("result", result.name().toLowerCase());
+        gameOver.put("reason", reason);
+        gameOver.put("level", levelName);
+        pendingGameOver = gameOver;
+    }
+
+    /**
+     * Ends the match in defeat once no player is left alive.
+     */
+    public void onPlayerDestroyed() {
+        checkDefeat();
+    }
+
+    private void checkDefeat() {
+        if (state.get() != RoomState.RUNNING) return;
+
+        for (Player player : playerManager.getPlayers()) {
+            if (player.isActive() && !player.isDestroyed()) return;
+        }
+        endMatch(MatchResult.DEFEAT, "players_destroyed");
+    }
+
+    /**
+     * Starts the given level in this finished room, reusing its grid, pools and buffers.
+     * Does nothing unless the room is still finished on {@code fromLevel}, so repeated requests
+     * advance only once. Simulation thread only.
+     */
+    public void startLevel(String fromLevel, String name, LevelGrid template, WaveConfig waves) {
+        if (state.get() != RoomState.FINISHED || !Objects.equals(levelName, fromLevel)) return;
+        if (executor == null) return; // detached while the task was queued
+
+        if (level != null && level.getRows() == template.getRows() && level.getCols() == template.getCols()) {
+            level.loadFrom(template);
+            flowField.recompute();
+        } else {
+            setLevel(name, template.copy());
+        }
+        levelName = name;
+        waveConfig = waves;
+
+        bulletManager.clear();
+        enemyManager.clear();
+        bonusManager.clear();
+        events.clear();
+        inputs.drainTo(inputBatch); // input sent for the old level is stale
+        snapshots.clear();
+
+        List<Map<String, Object>> playerEvents = new ArrayList<>();
+        for (Player player : playerManager.getPlayers()) {
+            player.respawn();
+            // Next game_tick is a keyframe with the new map
+            player.getOutbound().requestResync();
+            queuePlayerEvent(EventType.PLAYER_SPAWN, player);
+            playerEvents.add(Map.of(
+                    "action", "spawn",
+                    "playerId", player.getPlayerId(),
+                    "x", player.getX(),
+                    "y", player.getY(),
+                    "direction", player.getDirection()
+            ));
+        }
+
+        // The room may have been closed meanwhile; then it stays closed
+        if (!state.compareAndSet(RoomState.FINISHED, RoomState.WAITING)) return;
+        matchResult = null;
+        // The players are still here, so the next level starts right away
+        startIfReady();
+        touch();
+
+        broadcast(Map.of(
+                "type", "level_start",
+                "level", name,
+                "levelMap", level.toRows(),
+                "playerEvents", playerEvents
+        ));
+        startGameTickLoop();
+    }
+
+    public String getLevelName() {
+        return levelName;
+    }
+
+    /**
+     * Marks the room closed; ticks still queued do nothing from now on. Everything the room
+     * holds is dropped by a final task on the room's worker, which runs after any tick already
+     * in progress, or right here if the room is not registered. Call before unregistering the
+     * room, which cancels its remaining tasks. Idempotent.
+     */
+    public void close() {
+        if (state.getAndSet(RoomState.CLOSED) == RoomState.CLOSED) return;
+
+        if (!execute(this::teardown)) {
+            teardown();
+        }
+    }
+
+    private void teardown() {
+        bonusManager.stop();
+        enemyManager.shutdown();
+        for (Player player : playerManager.getPlayers()) {
+            playerManager.removePlayer(player);
+        }
+        events.clear();
+    }
+
+    public long getLastActivityMillis() {
+        return lastActivityMillis;
+    }
+
+    public long getFinishedAtMillis() {
+        return finishedAtMillis;
+    }
+
+    private void touch() {
+        lastActivityMillis = System.currentTimeMillis();
+    }
+
     public int playerCount() {
         return playerManager.getPlayerCount();
     }
 
+    /**
+     * Id the next joining player gets, or -1 if the room is full. Synchronize on the room
+     * from this call until the player is added.
+     */
+    public int nextFreePlayerId() {
+        return playerManager.nextFreePlayerId();
+    }
+
     public List<Player> getPlayers() {
         return playerManager.getPlayers();
     }
 
-    public Map<Integer, Player> getPlayerMap() {
-        return getPlayers().stream().collect(Collectors.toMap(Player::getId, p -> p));
+    public Player getPlayerById(int playerId) {
+        return playerManager.getPlayerById(playerId);
+    }
+
+    /**
+     * Occupancy of walls and tanks as they are right now, for movement checks on the simulation thread.
+     */
+    public OccupancyMap refreshOccupancy() {
+        occupancy.rebuild(level, playerManager.getPlayers(), enemyManager.getEnemies().values());
+        return occupancy;
     }
 
-    public List<Enemy> getEnemies() {
-        return new ArrayList<>(enemyManager.getEnemies().values());
+    /**
+     * Live view of the enemies; damaging an enemy may remove it, so do not damage while iterating.
+     */
+    public Collection<Enemy> getEnemies() {
+        return enemyManager.getEnemies().values();
     }
 
     public void damagePlayer(Player player) {
@@ -102,52 +371,106 @@ public class Room {
         return roomId;
     }
 
-    public void setLevelMap(List<String> levelMap) {
-        this.levelMap = levelMap;
+    public void setLevel(String name, LevelGrid level) {
+        this.levelName = name;
+        this.level = level;
+        this.flowField = new FlowField(level);
+        this.pathFinder = new EnemyPathFinder(level);
+    }
+
+    public LevelGrid getLevel() {
+        return level;
+    }
+
+    public byte getTile(int x, int y) {
+        return level.get(x, y);
+    }
+
+    public void updateTile(int x, int y, byte code) {
+        level.set(x, y, code);
+        flowField.onTileChanged(x, y);
+    }
+
+    public void setWaveConfig(WaveConfig waveConfig) {
+        this.waveConfig = waveConfig;
     }
 
-    public List<String> getLevelMap() {
-        return levelMap;
+    public WaveConfig getWaveConfig() {
+        return waveConfig;
     }
 
-    public char getTile(int x, int y) {
-        return TileHelper.getTile(x, y, levelMap);
+    public FlowField getFlowField() {
+        return flowField;
     }
 
-    public void updateTile(int x, int y, char newChar) {
-        TileHelper.updateTile(x, y, newChar, levelMap);
+    public EnemyPathFinder getPathFinder() {
+        return pathFinder;
     }
 
     public void addBullet(int x, int y, Direction direction, BulletOrigin origin) {
         bulletManager.addBullet(x, y, direction, origin);
     }
 
-    public void removeBullet(String bulletId) {
+    public void removeBullet(int bulletId) {
         bulletManager.removeBullet(bulletId);
     }
 
-    public void handlePlayerMove(WebSocketSession session, Direction direction) {
-        Player player = playerManager.getPlayerBySession(session);
-        if (player == null || player.getHealth() <= 0) return;
+    /**
+     * Queues a player command built with {@link InputCommand}. Safe to call from any thread;
+     * returns false if the room's input queue is full and the command was dropped.
+     */
+    public boolean submitInput(long command) {
+        touch();
+        return inputs.offer(command);
+    }
+
+    // Applies the queued player commands in arrival order. A player's moves within one tick
+    // are coalesced into the last one, so a burst of move messages moves the tank one tile.
+    private void applyInputs() {
+        int count = inputs.drainTo(inputBatch);
+        if (count == 0) return;
+
+        Arrays.fill(lastMove, -1);
+        for (int i = 0; i < count; i++) {
+            long command = inputBatch[i];
+            if (InputCommand.type(command) == InputCommand.MOVE) {
+                lastMove[InputCommand.playerId(command)] = i;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            long command = inputBatch[i];
+            Player player = playerManager.getPlayerById(InputCommand.playerId(command));
+            if (player == null) continue;
+
+            switch (InputCommand.type(command)) {
+                case InputCommand.MOVE -> {
+                    if (lastMove[InputCommand.playerId(command)] == i) {
+                        handlePlayerMove(player, InputCommand.direction(command));
+                    }
+                }
+                case InputCommand.FIRE -> {
+                    if (player.isActive() && !player.isDestroyed()) {
+                        addBullet(player.getX(), player.getY(), player.getDirection(), BulletOrigin.PLAYER);
+                    }
+                }
+            }
+        }
+    }
+
+    private void handlePlayerMove(Player player, Direction direction) {
+        if (player.getHealth() <= 0) return;
 
         int[] next = EnemyMovementHelper.getNextPosition(player.getX(), player.getY(), direction);
         int newX = next[0];
         int newY = next[1];
         player.setDirection(direction);
-        // Ensure the tile is walkable
-        if (!MovementValidator.canMove(newX, newY, levelMap)) return;
-
-        // Prevent collision with enemies and other players
-        boolean canOccupy = MovementValidator.canOccupy(
-                newX, newY,
-                null, // playerId is handled separately
-                player.getPlayerId(),
-                enemyManager.getEnemies(),
-                getPlayerMap(),
-                Set.of() // reservedTiles not used for player input
-        );
-
-        if (!canOccupy) return;
+        // Ensure the tiles are walkable and no other tank is in the way
+        OccupancyMap occupancy = refreshOccupancy();
+        if (player.isActive()) {
+            occupancy.removeTank(player.getX(), player.getY());
+        }
+        if (!occupancy.canEnter(newX, newY)) return;
 
         // Apply movement
         player.setX(newX);
@@ -155,98 +478,261 @@ public class Room {
 
         bonusManager.checkBonusCollision(player);
 
-        queuePlayerEvent(Map.of(
-                "action", "move",
-                "playerId", player.getPlayerId(),
-                "x", player.getX(),
-                "y", player.getY(),
-                "direction", player.getDirection()
-        ));
+        queuePlayerEvent(EventType.PLAYER_MOVE, player);
     }
 
     // ===== Queue Methods =====
-    public void queueBulletEvent(Map<String, Object> bulletEvent) {
-        bulletQueue.add(bulletEvent);
+    public void queueBulletEvent(EventType type, BulletStore bullets, int slot) {
+        GameEvent event = events.bullets.append(type);
+        event.netId = bullets.getNetId(slot);
+        event.x = bullets.getX(slot);
+        event.y = bullets.getY(slot);
+        event.direction = bullets.getDirection(slot);
+        event.origin = bullets.getOrigin(slot);
     }
 
-    public void queueBonusEvent(Map<String, Object> bonusEvent) {
-        bonusQueue.add(bonusEvent);
+    public void queueBonusEvent(EventType type, Bonus bonus, int playerId) {
+        GameEvent event = events.bonuses.append(type);
+        event.netId = bonus.getId();
+        event.playerId = playerId;
+        event.x = bonus.getX();
+        event.y = bonus.getY();
+        event.bonusType = bonus.getType();
     }
 
-    public void queueTileUpdate(Map<String, Object> tileUpdate) {
-        tileQueue.add(tileUpdate);
+    // Turns the cells changed this tick into tile updates, one per cell whatever the number of hits
+    private void queueDirtyTiles() {
+        if (level == null) return;
+
+        for (int i = 0; i < level.getDirtyCount(); i++) {
+            int x = level.getDirtyX(i);
+            int y = level.getDirtyY(i);
+            GameEvent event = events.tiles.append(EventType.TILE_UPDATE);
+            event.x = x;
+            event.y = y;
+            event.tile = level.getChar(x, y);
+        }
+        level.clearDirty();
     }
 
-    public void queueExplosion(Map<String, Object> explosion) {
-        explosionQueue.add(explosion);
+    public void queueExplosion(int x, int y) {
+        GameEvent event = events.explosions.append(EventType.EXPLOSION);
+        event.x = x;
+        event.y = y;
     }
 
-    public void queueEnemyEvent(Map<String, Object> event) {
-        enemyQueue.add(event);
+    public void queueEnemyEvent(EventType type, Enemy enemy) {
+        GameEvent event = events.enemies.append(type);
+        event.netId = enemy.getId();
+        event.x = enemy.getX();
+        event.y = enemy.getY();
+        event.direction = enemy.getDirection();
     }
 
-    public void queuePlayerEvent(Map<String, Object> event) {
-        playerQueue.add(event);
+    public void queuePlayerEvent(EventType type, Player player) {
+        GameEvent event = events.players.append(type);
+        event.playerId = player.getPlayerId();
+        event.x = player.getX();
+        event.y = player.getY();
+        event.direction = player.getDirection();
     }
 
     // ===== Tick Loop =====
     private void startGameTickLoop() {
-        tickExecutor.scheduleAtFixedRate(this::flushGameTick, 0, 33, TimeUnit.MILLISECONDS); // ~30fps
+        // A level started after close() or detach() has nothing left to tick
+        if (state.get() == RoomState.CLOSED) return;
+        synchronized (scheduledTasks) {
+            if (executor == null) return;
+            tickLoop = scheduleAtFixedRate(this::runTick, 0, GameConstants.TICK_MS, TimeUnit.MILLISECONDS);
+        }
     }
 
+    // Stops ticking a finished room; it stays registered until the next level or the reaper closes it
+    private void freeze() {
+        if (tickLoop != null) {
+            tickLoop.cancel(false);
+            tickLoop = null;
+        }
+        if (pendingGameOver != null) {
+            broadcast(pendingGameOver);
+            pendingGameOver = null;
+        }
+    }
+
+    /**
+     * One authoritative simulation step. Subsystems always run in the same order:
+     * player input, bullets (and their collisions), enemies, bonuses, then the batched broadcast.
+     */
+    private void runTick() {
+        try {
+            if (state.get() == RoomState.CLOSED) return;
+            tick++;
+
+            applyInputs();
+            if (tick % GameConstants.BULLET_STEP_TICKS == 0) {
+                bulletManager.updateBullets();
+            }
+            enemyManager.update(tick);
+            bonusManager.update(tick);
+
+            flushGameTick();
+            if (tick % GameConstants.STATS_LOG_TICKS == 0) {
+                logStats();
+            }
+
+            if (state.get() == RoomState.FINISHED) {
+                freeze();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int nextEntityId() {
+        return entityIds.next();
+    }
+
+    /**
+     * Returns the id of an entity that has left the game to the allocator.
+     */
+    public void releaseEntityId(int id) {
+        entityIds.release(id);
+    }
+
+    /**
+     * Captures this tick's snapshot and sends every player the tick's events plus the state
+     * delta against the snapshot it last acknowledged (a keyframe on join, resync or when its
+     * baseline is too old). Players that share a wire format and a baseline share one encode.
+     */
     private void flushGameTick() {
-        Map<String, Object> tick = new HashMap<>();
-        tick.put("type", "game_tick");
+        queueDirtyTiles();
+        if (playerManager.getPlayerCount() == 0) {
+            events.clear();
+            return;
+        }
 
-        flushQueue(tick, "bullets", bulletQueue);
-        flushQueue(tick, "bonuses", bonusQueue);
-        flushQueue(tick, "tiles", tileQueue);
-        flushQueue(tick, "explosions", explosionQueue);
-        flushQueue(tick, "enemyEvents", enemyQueue);
-        flushQueue(tick, "playerEvents", playerQueue);
+        long allocatedBefore = BroadcastStats.currentThreadAllocatedBytes();
+        broadcastStats.startTick();
+        try {
+            WorldSnapshot snapshot = captureSnapshot();
+            encodedCount = 0;
+            int sent = 0;
 
-        if (tick.size() > 1) {
-            broadcast(tick);
+            for (Player player : playerManager.getPlayers()) {
+                OutboundSession outbound = player.getOutbound();
+                WireFormat format = player.getWireFormat();
+                long baseline = outbound.consumeResync() ? -1 : outbound.getAckedTick();
+
+                Object payload = encodedFrame(format, baseline, snapshot);
+                if (payload == null) continue; // client already up to date
+
+                WebSocketMessage<?> message = format == WireFormat.BINARY
+                        ? new BinaryMessage((byte[]) payload)
+                        : (TextMessage) payload;
+                if (outbound.sendSnapshot(message, tick)) {
+                    sent++;
+                }
+            }
+
+            broadcastStats.recordSent(sent);
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            events.clear();
+            broadcastStats.recordTick(allocatedBefore);
         }
     }
 
-    private void flushQueue(Map<String, Object> tick, String key, List<Map<String, Object>> queue) {
-        synchronized (queue) {
-            if (!queue.isEmpty()) {
-                tick.put(key, new ArrayList<>(queue));
-                queue.clear();
+    // Returns the shared payload for (format, baseline), encoding it on first use this tick
+    private Object encodedFrame(WireFormat format, long baseline, WorldSnapshot snapshot) throws Exception {
+        for (int i = 0; i < encodedCount; i++) {
+            if (encodedFormats[i] == format && encodedBaselines[i] == baseline) {
+                return encodedPayloads[i];
+            }
+        }
+
+        delta.compute(snapshots, baseline, snapshot);
+
+        Object payload = null;
+        if (!delta.isEmpty() || !events.isEmpty()) {
+            if (format == WireFormat.BINARY) {
+                byte[] binary = binaryTickEncoder.encode(tick, events, delta, level);
+                broadcastStats.recordEncode(binary.length);
+                payload = binary;
+            } else {
+                byte[] json = tickEncoder.encode(tick, events, delta, level);
+                broadcastStats.recordEncode(json.length);
+                payload = new TextMessage(json);
             }
         }
+
+        if (encodedCount == encodedPayloads.length) {
+            encodedFormats = Arrays.copyOf(encodedFormats, encodedCount * 2);
+            encodedBaselines = Arrays.copyOf(encodedBaselines, encodedCount * 2);
+            encodedPayloads = Arrays.copyOf(encodedPayloads, encodedCount * 2);
+        }
+        encodedFormats[encodedCount] = format;
+        encodedBaselines[encodedCount] = baseline;
+        encodedPayloads[encodedCount] = payload;
+        encodedCount++;
+        return payload;
+    }
+
+    private WorldSnapshot captureSnapshot() {
+        WorldSnapshot snapshot = snapshots.begin(tick);
+
+        for (Player player : playerManager.getPlayers()) {
+            if (!player.isActive()) continue;
+            snapshot.addEntity(WorldSnapshot.KIND_PLAYER, player.getPlayerId(), player.getX(), player.getY(),
+                    player.getDirection().ordinal(), Math.max(0, player.getHealth()));
+        }
+        for (Enemy enemy : enemyManager.getEnemies().values()) {
+            snapshot.addEntity(WorldSnapshot.KIND_ENEMY, enemy.getId(), enemy.getX(), enemy.getY(),
+                    enemy.getDirection().ordinal(), Math.max(0, enemy.getHealth()));
+        }
+        BulletStore bullets = bulletManager.getBullets();
+        for (int i = 0; i < bullets.size(); i++) {
+            int slot = bullets.slotAt(i);
+            snapshot.addEntity(WorldSnapshot.KIND_BULLET, bullets.getNetId(slot), bullets.getX(slot), bullets.getY(slot),
+                    bullets.getDirection(slot).ordinal(), bullets.getOrigin(slot).ordinal());
+        }
+        for (Bonus bonus : bonusManager.getActiveBonuses()) {
+            snapshot.addEntity(WorldSnapshot.KIND_BONUS, bonus.getId(), bonus.getX(), bonus.getY(),
+                    0, GameConstants.BONUS_TYPES.indexOf(bonus.getType()));
+        }
+        for (int i = 0; i < events.tiles.size(); i++) {
+            GameEvent tileEvent = events.tiles.get(i);
+            snapshot.addTile(tileEvent.x, tileEvent.y, tileEvent.tile);
+        }
+
+        snapshots.commit(snapshot);
+        return snapshot;
+    }
+
+    private void logStats() {
+        long dropped = 0;
+        int queued = 0;
+        for (Player player : playerManager.getPlayers()) {
+            dropped += player.getOutbound().getDroppedFrames();
+            queued += player.getOutbound().getQueuedFrames();
+        }
+        log.info("Room {} tick {}: {}, droppedFrames={}, queuedFrames={}",
+                roomId, tick, broadcastStats, dropped, queued);
     }
 
     // ===== WebSocket Broadcast =====
+    /**
+     * Sends a control message that every player must receive, e.g. base_destroyed.
+     */
     public void broadcast(Map<String, Object> msg) {
         try {
-            String json = mapper.writeValueAsString(msg);
+            TextMessage text = new TextMessage(mapper.writeValueAsBytes(msg));
             for (Player player : playerManager.getPlayers()) {
-                WebSocketSession session = player.getSession();
-
-                if (session.isOpen()) {
-                    // Get or create the lock for this session
-                    ReentrantLock lock = sessionLocks.computeIfAbsent(session, s -> new ReentrantLock());
-
-                    // Lock to ensure no concurrent send
-                    if (lock.tryLock()) {
-                        try {
-                            session.sendMessage(new TextMessage(json));
-                        } catch (IllegalStateException e) {
-                            System.err.println("WebSocket in bad state: " + e.getMessage());
-                            // Optionally mark this session as broken
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        } finally {
-                            lock.unlock();
-                        }
-                    } else {
-                        // Skipped sending due to locked session, can log or queue instead
-                        System.err.println("Skipped sending to locked session");
-                    }
-                }
+                player.getOutbound().send(text);
             }
         } catch (Exception e) {
             e.printStackTrace();
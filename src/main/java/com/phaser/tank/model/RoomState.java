@@ -0,0 +1,19 @@
+package com.phaser.tank.model;
+
+/**
+ * Lifecycle of a room. States move forward, except that a FINISHED room starts over in
+ * WAITING or RUNNING when it moves on to the next level; any state may go straight to CLOSED.
+ *
+ * <pre>
+ * WAITING  - created, waiting for enough players to start
+ * RUNNING  - enemies and bonuses are active
+ * FINISHED - the match is over and the tick loop is stopped, players can still see the result
+ * CLOSED   - unscheduled and released, never reused
+ * </pre>
+ */
+public enum RoomState {
+    WAITING,
+    RUNNING,
+    FINISHED,
+    CLOSED
+}
@@ -0,0 +1,97 @@
+package com.phaser.tank.model;
+
+import java.util.Arrays;
+
+/**
+ * Tile kinds of a level. A tile's code in {@link LevelGrid} is its ordinal, so looking up
+ * a tile's behaviour is a single array read.
+ */
+public enum TileType {
+    EMPTY('.', "empty", Flags.WALKABLE),
+    BRICK('#', "brick", Flags.BLOCKS_BULLETS | Flags.DESTRUCTIBLE),
+    STONE('@', "stone", Flags.BLOCKS_BULLETS),
+    BUSH('%', "bush", Flags.WALKABLE | Flags.HIDES_TANKS),
+    WATER('~', "water", 0),
+    ICE('-', "ice", Flags.BLOCKS_BULLETS | Flags.SLIPPERY),
+    UNKNOWN('?', "unknown", 0);
+
+    private static final class Flags {
+        static final int WALKABLE = 1;
+        static final int BLOCKS_BULLETS = 1 << 1;
+        static final int DESTRUCTIBLE = 1 << 2;
+        static final int HIDES_TANKS = 1 << 3;
+        static final int SLIPPERY = 1 << 4;
+    }
+
+    private static final TileType[] BY_CODE = values();
+    private static final TileType[] BY_CHAR = new TileType[128];
+
+    static {
+        Arrays.fill(BY_CHAR, UNKNOWN);
+        for (TileType type : BY_CODE) {
+            BY_CHAR[type.symbol] = type;
+        }
+    }
+
+    private final char symbol;
+    private final String name;
+    private final boolean walkable;
+    private final boolean blocksBullets;
+    private final boolean destructible;
+    private final boolean hidesTanks;
+    private final boolean slippery;
+
+    TileType(char symbol, String name, int flags) {
+        this.symbol = symbol;
+        this.name = name;
+        this.walkable = (flags & Flags.WALKABLE) != 0;
+        this.blocksBullets = (flags & Flags.BLOCKS_BULLETS) != 0;
+        this.destructible = (flags & Flags.DESTRUCTIBLE) != 0;
+        this.hidesTanks = (flags & Flags.HIDES_TANKS) != 0;
+        this.slippery = (flags & Flags.SLIPPERY) != 0;
+    }
+
+    public static TileType fromCode(byte code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : UNKNOWN;
+    }
+
+    public static TileType fromChar(char symbol) {
+        return symbol < BY_CHAR.length ? BY_CHAR[symbol] : UNKNOWN;
+    }
+
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public char getSymbol() {
+        return symbol;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Tanks can drive over it. */
+    public boolean isWalkable() {
+        return walkable;
+    }
+
+    /** A bullet reaching it is destroyed. */
+    public boolean blocksBullets() {
+        return blocksBullets;
+    }
+
+    /** A bullet reaching it clears it. */
+    public boolean isDestructible() {
+        return destructible;
+    }
+
+    /** Drawn above tanks. */
+    public boolean hidesTanks() {
+        return hidesTanks;
+    }
+
+    public boolean isSlippery() {
+        return slippery;
+    }
+}
@@ -0,0 +1,108 @@
+package com.phaser.tank.model;
+
+import java.util.List;
+
+/**
+ * Enemy waves of a level, read from waves/&lt;level&gt;.json or waves/default.json.
+ * Times are in milliseconds and are turned into simulation ticks by the director.
+ */
+public class WaveConfig {
+
+    // Enemies in the whole stage, 0 for endless
+    private int totalEnemies = 0;
+    private int maxAlive = 3;
+    private long firstSpawnMs = 3000;
+    private long spawnIntervalMs = 10000;
+    private List<EnemyType> enemyTypes = List.of(new EnemyType());
+
+    public int getTotalEnemies() {
+        return totalEnemies;
+    }
+
+    public void setTotalEnemies(int totalEnemies) {
+        this.totalEnemies = totalEnemies;
+    }
+
+    public int getMaxAlive() {
+        return maxAlive;
+    }
+
+    public void setMaxAlive(int maxAlive) {
+        this.maxAlive = maxAlive;
+    }
+
+    public long getFirstSpawnMs() {
+        return firstSpawnMs;
+    }
+
+    public void setFirstSpawnMs(long firstSpawnMs) {
+        this.firstSpawnMs = firstSpawnMs;
+    }
+
+    public long getSpawnIntervalMs() {
+        return spawnIntervalMs;
+    }
+
+    public void setSpawnIntervalMs(long spawnIntervalMs) {
+        this.spawnIntervalMs = spawnIntervalMs;
+    }
+
+    public List<EnemyType> getEnemyTypes() {
+        return enemyTypes;
+    }
+
+    public void setEnemyTypes(List<EnemyType> enemyTypes) {
+        this.enemyTypes = enemyTypes;
+    }
+
+    /**
+     * One kind of enemy tank and how often it is picked relative to the others.
+     */
+    public static class EnemyType {
+        private String name = "basic";
+        private int weight = 1;
+        private long stepMs = 1000;
+        private double fireChance = 0.2;
+        private int health = 1;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public void setWeight(int weight) {
+            this.weight = weight;
+        }
+
+        public long getStepMs() {
+            return stepMs;
+        }
+
+        public void setStepMs(long stepMs) {
+            this.stepMs = stepMs;
+        }
+
+        public double getFireChance() {
+            return fireChance;
+        }
+
+        public void setFireChance(double fireChance) {
+            this.fireChance = fireChance;
+        }
+
+        public int getHealth() {
+            return health;
+        }
+
+        public void setHealth(int health) {
+            this.health = health;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.phaser.tank.protocol;
+
+import com.phaser.tank.event.EventBuffer;
+import com.phaser.tank.event.EventType;
+import com.phaser.tank.event.GameEvent;
+import com.phaser.tank.event.TickEvents;
+import com.phaser.tank.model.BulletOrigin;
+import com.phaser.tank.model.LevelGrid;
+import com.phaser.tank.snapshot.SnapshotDelta;
+import com.phaser.tank.snapshot.WorldSnapshot;
+import com.phaser.tank.util.GameConstants;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compact binary form of the game_tick message. All numbers are big-endian.
+ *
+ * <pre>
+ * u8  message type (MSG_GAME_TICK)
+ * u32 tick number
+ * then six sections in this order: bullets, bonuses, tiles, explosions, enemies, players.
+ * Each section is a u16 record count followed by the records:
+ *   bullet    : u8 flags, u16 id, i8 x, i8 y
+ *   bonus     : u8 flags, u16 id, i8 x, i8 y, u8 bonus type index, u8 player id
+ *   tile      : i8 x, i8 y, u8 tile char
+ *   explosion : i8 x, i8 y
+ *   enemy     : u8 flags, u16 id, i8 x, i8 y
+ *   player    : u8 flags, u8 player id, i8 x, i8 y
+ * then the world state as a delta against the baseline tick, see below:
+ *   u32 baseline tick (0xFFFFFFFF for a keyframe)
+ *   keyframe only: u8 rows, u8 cols, rows * cols tile chars
+ *   u16 count, entity upserts : u8 kind, u16 id, i8 x, i8 y, u8 direction, u16 extra
+ *   u16 count, removed        : u8 kind, u16 id
+ *   u16 count, tile changes   : i8 x, i8 y, u8 tile char
+ * kind: 0 = player, 1 = enemy, 2 = bullet, 3 = bonus
+ * extra: health for players and enemies, origin ordinal for bullets, bonus type index for bonuses
+ * flags = direction ordinal (bits 0-1) | action (bits 2-3) | origin (bit 4, bullets only: 1 = enemy)
+ * action: 0 = create/spawn, 1 = move, 2 = destroy/remove, 3 = collected
+ * </pre>
+ *
+ * The baseline is a tick whose frame the client has already received, but frames queued after
+ * it all share it, so it is usually not the previous frame. Clients keep the state they rebuilt
+ * for each tick they received, for the last {@link GameConstants#SNAPSHOT_HISTORY} ticks, apply
+ * the delta to the state of the baseline tick and store the result as the state of this tick.
+ * A keyframe replaces everything, including the level map.
+ */
+public class BinaryTickEncoder {
+
+    public static final byte MSG_GAME_TICK = 1;
+
+    private static final int ACTION_SPAWN = 0;
+    private static final int ACTION_MOVE = 1;
+    private static final int ACTION_REMOVE = 2;
+    private static final int ACTION_COLLECTED = 3;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+    public byte[] encode(long tick, TickEvents events, SnapshotDelta delta, LevelGrid level) {
+        buffer.clear();
+        ensureCapacity(5);
+        buffer.put(MSG_GAME_TICK);
+        buffer.putInt((int) tick);
+
+        writeSection(events.bullets, 5);
+        writeSection(events.bonuses, 7);
+        writeSection(events.tiles, 3);
+        writeSection(events.explosions, 2);
+        writeSection(events.enemies, 5);
+        writeSection(events.players, 4);
+
+        writeState(delta, level);
+
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private void writeState(SnapshotDelta delta, LevelGrid level) {
+        ensureCapacity(4);
+        buffer.putInt(delta.isKeyframe() ? -1 : (int) delta.getBaselineTick());
+
+        if (delta.isKeyframe()) {
+            int rows = level != null ? level.getRows() : 0;
+            int cols = level != null ? level.getCols() : 0;
+            ensureCapacity(2 + rows * cols);
+            buffer.put((byte) rows);
+            buffer.put((byte) cols);
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    buffer.put((byte) level.getChar(col, row));
+                }
+            }
+        }
+
+        ensureCapacity(2 + delta.getUpsertCount() * 8);
+        buffer.putShort((short) delta.getUpsertCount());
+        for (int i = 0; i < delta.getUpsertCount(); i++) {
+            long entity = delta.getUpsert(i);
+            buffer.put((byte) WorldSnapshot.kind(entity));
+            buffer.putShort((short) WorldSnapshot.id(entity));
+            buffer.put((byte) WorldSnapshot.x(entity));
+            buffer.put((byte) WorldSnapshot.y(entity));
+            buffer.put((byte) WorldSnapshot.direction(entity));
+            buffer.putShort((short) WorldSnapshot.extra(entity));
+        }
+
+        ensureCapacity(2 + delta.getRemovedCount() * 3);
+        buffer.putShort((short) delta.getRemovedCount());
+        for (int i = 0; i < delta.getRemovedCount(); i++) {
+            buffer.put((byte) delta.getRemovedKind(i));
+            buffer.putShort((short) delta.getRemovedId(i));
+        }
+
+        ensureCapacity(2 + delta.getTileCount() * 3);
+        buffer.putShort((short) delta.getTileCount());
+        for (int i = 0; i < delta.getTileCount(); i++) {
+            int tile = delta.getTile(i);
+            buffer.put((byte) WorldSnapshot.tileX(tile));
+            buffer.put((byte) WorldSnapshot.tileY(tile));
+            buffer.put((byte) WorldSnapshot.tileChar(tile));
+        }
+    }
+
+    private void writeSection(EventBuffer section, int recordSize) {
+        ensureCapacity(2 + section.size() * recordSize);
+        buffer.putShort((short) section.size());
+
+        for (int i = 0; i < section.size(); i++) {
+            GameEvent e = section.get(i);
+            switch (e.type) {
+                case BULLET_CREATE, BULLET_MOVE, BULLET_DESTROY, ENEMY_SPAWN, ENEMY_MOVE, ENEMY_DESTROY -> {
+                    buffer.put(flags(e));
+                    buffer.putShort((short) e.netId);
+                    putPosition(e);
+                }
+                case BONUS_SPAWN, BONUS_REMOVE, BONUS_COLLECTED -> {
+                    buffer.put(flags(e));
+                    buffer.putShort((short) e.netId);
+                    putPosition(e);
+                    buffer.put((byte) GameConstants.BONUS_TYPES.indexOf(e.bonusType));
+                    buffer.put((byte) e.playerId);
+                }
+                case PLAYER_SPAWN, PLAYER_MOVE, PLAYER_DESTROY -> {
+                    buffer.put(flags(e));
+                    buffer.put((byte) e.playerId);
+                    putPosition(e);
+                }
+                case TILE_UPDATE -> {
+                    putPosition(e);
+                    buffer.put((byte) e.tile);
+                }
+                case EXPLOSION -> putPosition(e);
+            }
+        }
+    }
+
+    private void putPosition(GameEvent e) {
+        buffer.put((byte) e.x);
+        buffer.put((byte) e.y);
+    }
+
+    private static byte flags(GameEvent e) {
+        int flags = e.direction != null ? e.direction.ordinal() : 0;
+        flags |= action(e.type) << 2;
+        if (e.origin == BulletOrigin.ENEMY) {
+            flags |= 1 << 4;
+        }
+        return (byte) flags;
+    }
+
+    private static int action(EventType type) {
+        return switch (type) {
+            case BULLET_CREATE, ENEMY_SPAWN, PLAYER_SPAWN, BONUS_SPAWN -> ACTION_SPAWN;
+            case BULLET_MOVE, ENEMY_MOVE, PLAYER_MOVE -> ACTION_MOVE;
+            case BONUS_COLLECTED -> ACTION_COLLECTED;
+            default -> ACTION_REMOVE;
+        };
+    }
+
+    private void ensureCapacity(int extra) {
+        if (buffer.remaining() >= extra) return;
+
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + extra));
+        buffer.flip();
+        bigger.put(buffer);
+        buffer = bigger;
+    }
+}
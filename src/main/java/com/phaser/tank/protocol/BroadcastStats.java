@@ -0,0 +1,82 @@
+package com.phaser.tank.protocol;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Per-room counters for the game_tick broadcast path: how many bytes were encoded,
+ * how many frames went out and how much the encoding thread allocated per tick.
+ * Updated only by the room's simulation thread; readers get a best-effort view.
+ */
+public class BroadcastStats {
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationMXBean();
+
+    private volatile long ticks;
+    private volatile long encodes;
+    private volatile long encodedBytes;
+    private volatile long framesSent;
+    private volatile long allocatedBytes;
+    private volatile int lastTickBytes;
+    private volatile long lastTickAllocatedBytes;
+
+    /**
+     * Bytes allocated so far by the calling thread, or -1 if the JVM cannot tell.
+     */
+    public static long currentThreadAllocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    public void recordEncode(int bytes) {
+        encodes++;
+        encodedBytes += bytes;
+        lastTickBytes += bytes;
+    }
+
+    public void recordSent(int frames) {
+        framesSent += frames;
+    }
+
+    public void recordTick(long allocatedBefore) {
+        ticks++;
+        long allocatedAfter = currentThreadAllocatedBytes();
+        if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+            lastTickAllocatedBytes = allocatedAfter - allocatedBefore;
+            allocatedBytes += lastTickAllocatedBytes;
+        }
+    }
+
+    public void startTick() {
+        lastTickBytes = 0;
+    }
+
+    private double getAverageBytesPerTick() {
+        return ticks == 0 ? 0 : (double) encodedBytes / ticks;
+    }
+
+    private double getAverageAllocatedBytesPerTick() {
+        return ticks == 0 ? 0 : (double) allocatedBytes / ticks;
+    }
+
+    @Override
+    public String toString() {
+        return "BroadcastStats{" +
+                "ticks=" + ticks +
+                ", encodes=" + encodes +
+                ", framesSent=" + framesSent +
+                ", avgBytesPerTick=" + String.format("%.1f", getAverageBytesPerTick()) +
+                ", avgAllocatedBytesPerTick=" + String.format("%.1f", getAverageAllocatedBytesPerTick()) +
+                ", lastTickBytes=" + lastTickBytes +
+                ", lastTickAllocatedBytes=" + lastTickAllocatedBytes +
+                '}';
+    }
+
+    private static com.sun.management.ThreadMXBean allocationMXBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+            sunBean.setThreadAllocatedMemoryEnabled(true);
+            return sunBean;
+        }
+        return null;
+    }
+}
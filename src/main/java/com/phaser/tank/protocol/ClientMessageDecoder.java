@@ -0,0 +1,107 @@
+package com.phaser.tank.protocol;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.phaser.tank.model.Direction;
+
+import java.io.IOException;
+
+/**
+ * Streams a client message straight into its type and arguments, without building a map of
+ * the whole JSON object. Only "type" and "direction" are read; any other field is skipped.
+ *
+ * Thread-safe: the factory is shared, every call uses its own parser.
+ */
+public class ClientMessageDecoder {
+
+    /**
+     * A decoded message. The direction is only set for moves.
+     */
+    public static final class ClientMessage {
+        private final ClientMessageType type;
+        private final Direction direction;
+
+        ClientMessage(ClientMessageType type, Direction direction) {
+            this.type = type;
+            this.direction = direction;
+        }
+
+        public ClientMessageType getType() {
+            return type;
+        }
+
+        public Direction getDirection() {
+            return direction;
+        }
+    }
+
+    private static final ClientMessage FIRE_BULLET = new ClientMessage(ClientMessageType.FIRE_BULLET, null);
+    private static final ClientMessage RESYNC = new ClientMessage(ClientMessageType.RESYNC, null);
+    private static final ClientMessage NEXT_LEVEL = new ClientMessage(ClientMessageType.NEXT_LEVEL, null);
+    private static final ClientMessage[] MOVES = new ClientMessage[Direction.values().length];
+
+    static {
+        for (Direction direction : Direction.values()) {
+            MOVES[direction.ordinal()] = new ClientMessage(ClientMessageType.PLAYER_MOVE, direction);
+        }
+    }
+
+    private final JsonFactory factory = new JsonFactory();
+
+    /**
+     * Decodes one message.
+     *
+     * @throws IllegalArgumentException if the payload is not a JSON object, its type is unknown
+     *                                  or a move has no valid direction
+     */
+    public ClientMessage decode(String payload) {
+        String typeName = null;
+        String directionName = null;
+
+        try (JsonParser parser = factory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Message is not a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("type".equals(field) && value == JsonToken.VALUE_STRING) {
+                    typeName = parser.getText();
+                } else if ("direction".equals(field) && value == JsonToken.VALUE_STRING) {
+                    directionName = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed message: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed message: " + e.getMessage());
+        }
+
+        ClientMessageType type = ClientMessageType.fromWireName(typeName);
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown message type: " + typeName);
+        }
+
+        return switch (type) {
+            case PLAYER_MOVE -> MOVES[parseDirection(directionName).ordinal()];
+            case FIRE_BULLET -> FIRE_BULLET;
+            case RESYNC -> RESYNC;
+            case NEXT_LEVEL -> NEXT_LEVEL;
+        };
+    }
+
+    private static Direction parseDirection(String name) {
+        if (name != null) {
+            for (Direction direction : Direction.values()) {
+                if (direction.name().equalsIgnoreCase(name)) return direction;
+            }
+        }
+        throw new IllegalArgumentException("Invalid direction: " + name);
+    }
+}
@@ -0,0 +1,31 @@
+package com.phaser.tank.protocol;
+
+/**
+ * The messages a client may send once it is in a room.
+ */
+public enum ClientMessageType {
+    PLAYER_MOVE("player_move"),
+    FIRE_BULLET("fire_bullet"),
+    RESYNC("resync"),
+    NEXT_LEVEL("next_level");
+
+    private final String wireName;
+
+    ClientMessageType(String wireName) {
+        this.wireName = wireName;
+    }
+
+    public String getWireName() {
+        return wireName;
+    }
+
+    /**
+     * Type for the message's "type" field, or null if the server does not accept it.
+     */
+    public static ClientMessageType fromWireName(String name) {
+        for (ClientMessageType type : values()) {
+            if (type.wireName.equals(name)) return type;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,199 @@
+package com.phaser.tank.protocol;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.phaser.tank.event.EventBuffer;
+import com.phaser.tank.event.GameEvent;
+import com.phaser.tank.event.TickEvents;
+import com.phaser.tank.model.BulletOrigin;
+import com.phaser.tank.model.Direction;
+import com.phaser.tank.model.LevelGrid;
+import com.phaser.tank.snapshot.SnapshotDelta;
+import com.phaser.tank.snapshot.WorldSnapshot;
+import com.phaser.tank.util.GameConstants;
+
+import java.io.IOException;
+
+/**
+ * Streams a tick's events straight into the game_tick JSON message as UTF-8 bytes,
+ * without building intermediate maps, lists or strings. The output buffer is reused
+ * between ticks, so the only per-tick allocation is the returned payload.
+ *
+ * The "state" section is a delta against the tick named by state.baseline, not against the
+ * previous frame: several frames may be in flight against the same baseline. Clients keep the
+ * state they rebuilt for each tick they received, for the last
+ * {@link GameConstants#SNAPSHOT_HISTORY} ticks, apply the delta to the state of the baseline
+ * tick and store the result as the state of this tick. A keyframe (baseline -1) replaces
+ * everything, including the level map.
+ */
+public class JsonTickEncoder {
+
+    private final JsonFactory factory = new JsonFactory();
+    private final ByteArrayBuilder output = new ByteArrayBuilder(1024);
+
+    private static final String[] KIND_NAMES = {"player", "enemy", "bullet", "bonus"};
+
+    public byte[] encode(long tick, TickEvents events, SnapshotDelta delta, LevelGrid level) throws IOException {
+        output.reset();
+        try (JsonGenerator gen = factory.createGenerator(output, JsonEncoding.UTF8)) {
+            gen.writeStartObject();
+            gen.writeStringField("type", "game_tick");
+            gen.writeNumberField("tick", tick);
+
+            writeSection(gen, "bullets", events.bullets);
+            writeSection(gen, "bonuses", events.bonuses);
+            writeSection(gen, "tiles", events.tiles);
+            writeSection(gen, "explosions", events.explosions);
+            writeSection(gen, "enemyEvents", events.enemies);
+            writeSection(gen, "playerEvents", events.players);
+
+            writeState(gen, delta, level);
+
+            gen.writeEndObject();
+        }
+        return output.toByteArray();
+    }
+
+    private void writeState(JsonGenerator gen, SnapshotDelta delta, LevelGrid level) throws IOException {
+        gen.writeObjectFieldStart("state");
+        gen.writeNumberField("baseline", delta.getBaselineTick());
+        gen.writeBooleanField("keyframe", delta.isKeyframe());
+
+        if (delta.isKeyframe() && level != null) {
+            gen.writeArrayFieldStart("levelMap");
+            for (int row = 0; row < level.getRows(); row++) {
+                gen.writeString(level.rowString(row));
+            }
+            gen.writeEndArray();
+        }
+
+        gen.writeArrayFieldStart("entities");
+        for (int i = 0; i < delta.getUpsertCount(); i++) {
+            writeEntity(gen, delta.getUpsert(i));
+        }
+        gen.writeEndArray();
+
+        gen.writeArrayFieldStart("removed");
+        for (int i = 0; i < delta.getRemovedCount(); i++) {
+            gen.writeStartObject();
+            gen.writeStringField("kind", KIND_NAMES[delta.getRemovedKind(i)]);
+            gen.writeNumberField("id", delta.getRemovedId(i));
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+
+        gen.writeArrayFieldStart("tiles");
+        for (int i = 0; i < delta.getTileCount(); i++) {
+            int tile = delta.getTile(i);
+            gen.writeStartObject();
+            gen.writeNumberField("x", WorldSnapshot.tileX(tile));
+            gen.writeNumberField("y", WorldSnapshot.tileY(tile));
+            gen.writeStringField("tile", String.valueOf(WorldSnapshot.tileChar(tile)));
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+
+        gen.writeEndObject();
+    }
+
+    private void writeEntity(JsonGenerator gen, long entity) throws IOException {
+        int kind = WorldSnapshot.kind(entity);
+        int extra = WorldSnapshot.extra(entity);
+
+        gen.writeStartObject();
+        gen.writeStringField("kind", KIND_NAMES[kind]);
+        gen.writeNumberField("id", WorldSnapshot.id(entity));
+        gen.writeNumberField("x", WorldSnapshot.x(entity));
+        gen.writeNumberField("y", WorldSnapshot.y(entity));
+        gen.writeStringField("direction", Direction.values()[WorldSnapshot.direction(entity)].name());
+        switch (kind) {
+            case WorldSnapshot.KIND_PLAYER, WorldSnapshot.KIND_ENEMY -> gen.writeNumberField("health", extra);
+            case WorldSnapshot.KIND_BULLET -> gen.writeStringField("origin", BulletOrigin.values()[extra].name().toLowerCase());
+            case WorldSnapshot.KIND_BONUS -> gen.writeStringField("bonusType", GameConstants.BONUS_TYPES.get(extra));
+        }
+        gen.writeEndObject();
+    }
+
+    private void writeSection(JsonGenerator gen, String name, EventBuffer buffer) throws IOException {
+        if (buffer.isEmpty()) return;
+
+        gen.writeArrayFieldStart(name);
+        for (int i = 0; i < buffer.size(); i++) {
+            writeEvent(gen, buffer.get(i));
+        }
+        gen.writeEndArray();
+    }
+
+    private void writeEvent(JsonGenerator gen, GameEvent e) throws IOException {
+        gen.writeStartObject();
+        switch (e.type) {
+            case BULLET_CREATE -> {
+                gen.writeStringField("action", e.type.getAction());
+                gen.writeNumberField("bulletId", e.netId);
+                writePosition(gen, e);
+                gen.writeStringField("direction", e.direction.name());
+                gen.writeStringField("origin", e.origin.name().toLowerCase());
+            }
+            case BULLET_MOVE -> {
+                gen.writeStringField("action", e.type.getAction());
+                gen.writeNumberField("bulletId", e.netId);
+                writePosition(gen, e);
+                gen.writeStringField("direction", e.direction.name());
+            }
+            case BULLET_DESTROY -> {
+                gen.writeStringField("action", e.type.getAction());
+                gen.writeNumberField("bulletId", e.netId);
+            }
+            case ENEMY_SPAWN, ENEMY_MOVE -> {
+                gen.writeStringField("action", e.type.getAction());
+                gen.writeNumberField("enemyId", e.netId);
+                writePosition(gen, e);
+                gen.writeStringField("direction", e.direction.name());
+            }
+            case ENEMY_DESTROY -> {
+                gen.writeStringField("action", e.type.getAction());
+                gen.writeNumberField("enemyId", e.netId);
+            }
+            case PLAYER_SPAWN, PLAYER_MOVE -> {
+                gen.writeStringField("action", e.type.getAction());
+                gen.writeNumberField("playerId", e.playerId);
+                writePosition(gen, e);
+                gen.writeStringField("direction", e.direction.name());
+            }
+            case PLAYER_DESTROY -> {
+                gen.writeStringField("action", e.type.getAction());
+                gen.writeNumberField("playerId", e.playerId);
+                writePosition(gen, e);
+            }
+            case BONUS_SPAWN -> {
+                gen.writeStringField("event", e.type.getAction());
+                gen.writeNumberField("bonusId", e.netId);
+                writePosition(gen, e);
+                gen.writeStringField("bonusType", e.bonusType);
+            }
+            case BONUS_REMOVE -> {
+                gen.writeStringField("event", e.type.getAction());
+                gen.writeNumberField("bonusId", e.netId);
+            }
+            case BONUS_COLLECTED -> {
+                gen.writeStringField("event", e.type.getAction());
+                gen.writeNumberField("playerId", e.playerId);
+                gen.writeNumberField("bonusId", e.netId);
+                gen.writeStringField("bonusType", e.bonusType);
+            }
+            case TILE_UPDATE -> {
+                writePosition(gen, e);
+                gen.writeStringField("tile", String.valueOf(e.tile));
+            }
+            case EXPLOSION -> writePosition(gen, e);
+        }
+        gen.writeEndObject();
+    }
+
+    private void writePosition(JsonGenerator gen, GameEvent e) throws IOException {
+        gen.writeNumberField("x", e.x);
+        gen.writeNumberField("y", e.y);
+    }
+}
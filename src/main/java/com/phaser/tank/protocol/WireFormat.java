@@ -0,0 +1,14 @@
+package com.phaser.tank.protocol;
+
+/**
+ * Encoding used for game_tick frames of a session, chosen when the socket is opened.
+ * Control messages (start, errors, base_destroyed, ...) are always JSON.
+ */
+public enum WireFormat {
+    JSON,
+    BINARY;
+
+    public static WireFormat fromParam(String value) {
+        return "binary".equalsIgnoreCase(value) ? BINARY : JSON;
+    }
+}
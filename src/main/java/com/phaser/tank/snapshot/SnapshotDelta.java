@@ -0,0 +1,160 @@
+package com.phaser.tank.snapshot;
+
+import java.util.Arrays;
+
+/**
+ * Difference between a snapshot the client already has (the baseline) and the current one.
+ * Without a usable baseline the delta is a keyframe: every entity is an upsert and the
+ * client must also reload the full level map.
+ *
+ * A delta applies to the baseline snapshot only, never to whatever the client saw last: an
+ * entity created and removed between the two ticks appears in neither, so applying the delta
+ * to a newer state would leave it behind.
+ *
+ * Reused across ticks by the room; read it before computing the next one.
+ */
+public class SnapshotDelta {
+
+    private long baselineTick;
+    private boolean keyframe;
+
+    private long[] upserts = new long[64];
+    private int upsertCount;
+    private int[] removed = new int[16];
+    private int removedCount;
+    private int[] tiles = new int[16];
+    private int tileCount;
+
+    /**
+     * Computes current minus baseline. Falls back to a keyframe when the baseline is unknown
+     * or when any tick between it and current has already left the history.
+     */
+    public void compute(SnapshotHistory history, long baselineTick, WorldSnapshot current) {
+        upsertCount = 0;
+        removedCount = 0;
+        tileCount = 0;
+
+        WorldSnapshot baseline = baselineTick < current.tick ? history.get(baselineTick) : null;
+        if (baseline != null) {
+            for (long t = baselineTick + 1; t <= current.tick; t++) {
+                WorldSnapshot step = history.get(t);
+                if (step == null) {
+                    baseline = null;
+                    tileCount = 0;
+                    break;
+                }
+                for (int i = 0; i < step.tileCount; i++) {
+                    addTile(step.tiles[i]);
+                }
+            }
+        }
+
+        if (baseline == null) {
+            this.keyframe = true;
+            this.baselineTick = -1;
+            for (int i = 0; i < current.entityCount; i++) {
+                addUpsert(current.entities[i]);
+            }
+            return;
+        }
+
+        this.keyframe = false;
+        this.baselineTick = baselineTick;
+
+        int i = 0;
+        int j = 0;
+        while (i < baseline.entityCount || j < current.entityCount) {
+            if (j == current.entityCount) {
+                addRemoved(baseline.entities[i++]);
+            } else if (i == baseline.entityCount) {
+                addUpsert(current.entities[j++]);
+            } else {
+                long before = baseline.entities[i];
+                long after = current.entities[j];
+                int beforeKey = (int) (before >>> 32);
+                int afterKey = (int) (after >>> 32);
+
+                if (beforeKey == afterKey) {
+                    if (before != after) {
+                        addUpsert(after);
+                    }
+                    i++;
+                    j++;
+                } else if (beforeKey < afterKey) {
+                    addRemoved(before);
+                    i++;
+                } else {
+                    addUpsert(after);
+                    j++;
+                }
+            }
+        }
+    }
+
+    private void addUpsert(long entity) {
+        if (upsertCount == upserts.length) {
+            upserts = Arrays.copyOf(upserts, upserts.length * 2);
+        }
+        upserts[upsertCount++] = entity;
+    }
+
+    private void addRemoved(long entity) {
+        if (removedCount == removed.length) {
+            removed = Arrays.copyOf(removed, removed.length * 2);
+        }
+        removed[removedCount++] = (int) (entity >>> 32);
+    }
+
+    private void addTile(int tile) {
+        if (tileCount == tiles.length) {
+            tiles = Arrays.copyOf(tiles, tiles.length * 2);
+        }
+        tiles[tileCount++] = tile;
+    }
+
+    public boolean isKeyframe() {
+        return keyframe;
+    }
+
+    public long getBaselineTick() {
+        return baselineTick;
+    }
+
+    public boolean isEmpty() {
+        return !keyframe && upsertCount == 0 && removedCount == 0 && tileCount == 0;
+    }
+
+    public int getUpsertCount() {
+        return upsertCount;
+    }
+
+    /**
+     * Packed entity, decode with the {@link WorldSnapshot} accessors.
+     */
+    public long getUpsert(int index) {
+        return upserts[index];
+    }
+
+    public int getRemovedCount() {
+        return removedCount;
+    }
+
+    public int getRemovedKind(int index) {
+        return removed[index] >>> 16;
+    }
+
+    public int getRemovedId(int index) {
+        return removed[index] & 0xFFFF;
+    }
+
+    public int getTileCount() {
+        return tileCount;
+    }
+
+    /**
+     * Packed tile change, decode with the {@link WorldSnapshot} accessors.
+     */
+    public int getTile(int index) {
+        return tiles[index];
+    }
+}
@@ -0,0 +1,49 @@
+package com.phaser.tank.snapshot;
+
+/**
+ * Ring of the most recent snapshots of a room, one per tick.
+ * Owned by the room's simulation thread.
+ */
+public class SnapshotHistory {
+
+    private final WorldSnapshot[] ring;
+
+    public SnapshotHistory(int size) {
+        ring = new WorldSnapshot[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new WorldSnapshot();
+        }
+    }
+
+    /**
+     * Recycles the oldest slot for the given tick. Fill it, then call {@link #commit}.
+     */
+    public WorldSnapshot begin(long tick) {
+        WorldSnapshot snapshot = ring[slot(tick)];
+        snapshot.reset(tick);
+        return snapshot;
+    }
+
+    public void commit(WorldSnapshot snapshot) {
+        snapshot.seal();
+    }
+
+    /**
+     * The snapshot taken at this tick, or null if it is older than the history.
+     */
+    public WorldSnapshot get(long tick) {
+        if (tick < 0) return null;
+        WorldSnapshot snapshot = ring[slot(tick)];
+        return snapshot.tick == tick ? snapshot : null;
+    }
+
+    public void clear() {
+        for (WorldSnapshot snapshot : ring) {
+            snapshot.reset(-1);
+        }
+    }
+
+    private int slot(long tick) {
+        return (int) (tick % ring.length);
+    }
+}
@@ -0,0 +1,108 @@
+package com.phaser.tank.snapshot;
+
+import java.util.Arrays;
+
+/**
+ * Compact state of a room at the end of one tick.
+ *
+ * Every entity is a single long: the high 32 bits are its key (kind and id), the low 32 bits
+ * its packed state (x, y, direction and one kind-specific extra value). Entities are kept
+ * sorted by key so two snapshots can be diffed with one linear merge. Tile changes made
+ * during the tick are recorded as packed ints (x, y, tile char).
+ *
+ * Snapshots are pooled by {@link SnapshotHistory} and rewritten in place.
+ */
+public class WorldSnapshot {
+
+    public static final int KIND_PLAYER = 0;
+    public static final int KIND_ENEMY = 1;
+    public static final int KIND_BULLET = 2;
+    public static final int KIND_BONUS = 3;
+
+    long tick = -1;
+    long[] entities = new long[64];
+    int entityCount;
+    int[] tiles = new int[16];
+    int tileCount;
+
+    void reset(long tick) {
+        this.tick = tick;
+        this.entityCount = 0;
+        this.tileCount = 0;
+    }
+
+    public void addEntity(int kind, int id, int x, int y, int direction, int extra) {
+        if (entityCount == entities.length) {
+            entities = Arrays.copyOf(entities, entities.length * 2);
+        }
+        entities[entityCount++] = ((long) key(kind, id) << 32) | (state(x, y, direction, extra) & 0xFFFFFFFFL);
+    }
+
+    public void addTile(int x, int y, char tile) {
+        if (tileCount == tiles.length) {
+            tiles = Arrays.copyOf(tiles, tiles.length * 2);
+        }
+        tiles[tileCount++] = (x & 0xFF) | (y & 0xFF) << 8 | tile << 16;
+    }
+
+    void seal() {
+        Arrays.sort(entities, 0, entityCount);
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getEntityCount() {
+        return entityCount;
+    }
+
+    public long getEntity(int index) {
+        return entities[index];
+    }
+
+    // ===== Packing =====
+    static int key(int kind, int id) {
+        return (kind & 0xFF) << 16 | (id & 0xFFFF);
+    }
+
+    static int state(int x, int y, int direction, int extra) {
+        return (x & 0xFF) | (y & 0xFF) << 8 | (direction & 0x3) << 16 | (extra & 0x3FFF) << 18;
+    }
+
+    public static int kind(long entity) {
+        return (int) (entity >>> 48) & 0xFF;
+    }
+
+    public static int id(long entity) {
+        return (int) (entity >>> 32) & 0xFFFF;
+    }
+
+    public static int x(long entity) {
+        return (byte) entity;
+    }
+
+    public static int y(long entity) {
+        return (byte) (entity >>> 8);
+    }
+
+    public static int direction(long entity) {
+        return (int) (entity >>> 16) & 0x3;
+    }
+
+    public static int extra(long entity) {
+        return (int) (entity >>> 18) & 0x3FFF;
+    }
+
+    public static int tileX(int tile) {
+        return (byte) tile;
+    }
+
+    public static int tileY(int tile) {
+        return (byte) (tile >>> 8);
+    }
+
+    public static char tileChar(int tile) {
+        return (char) (tile >>> 16);
+    }
+}
@@ -0,0 +1,235 @@
+package com.phaser.tank.util;
+
+import com.phaser.tank.model.BulletStore;
+import com.phaser.tank.model.Direction;
+import com.phaser.tank.model.Enemy;
+import com.phaser.tank.model.Player;
+
+import java.util.Arrays;
+
+/**
+ * Per-tick index of bullets and tanks by map cell, rebuilt at the start of each bullet step.
+ * Each cell keeps its entries in insertion order as an intrusive linked list of array indices,
+ * so building the grid allocates nothing once the arrays have grown, and every query only
+ * looks at the entries of a single cell.
+ *
+ * A tank is indexed under the four cells of its 2x2 body, so "which tank does this bullet hit"
+ * is the same test as {@link Collisions#isBulletHittingTank}. The grid has a margin around
+ * the map for bullets that have just left it; bullets even further out go to a small overflow
+ * list that is scanned linearly.
+ */
+public class CollisionGrid {
+
+    private static final int MARGIN = 2;
+    private static final int NONE = -1;
+
+    private final int width;
+    private final int height;
+
+    // Bullet layer entries are BulletStore slots, tank layer entries index the tank arrays
+    private final Layer bullets;
+    private final Layer players;
+    private final Layer enemies;
+    private BulletStore bulletStore;
+    private Player[] playerList = new Player[4];
+    private int playerCount;
+    private Enemy[] enemyList = new Enemy[8];
+    private int enemyCount;
+
+    private int[] overflow = new int[4];
+    private int overflowCount;
+
+    public CollisionGrid(int cols, int rows) {
+        this.width = cols + 2 * MARGIN;
+        this.height = rows + 2 * MARGIN;
+        this.bullets = new Layer(width * height, 32);
+        this.players = new Layer(width * height, 16);
+        this.enemies = new Layer(width * height, 32);
+    }
+
+    public void clear() {
+        bullets.clear();
+        players.clear();
+        enemies.clear();
+        bulletStore = null;
+        Arrays.fill(playerList, 0, playerCount, null);
+        playerCount = 0;
+        Arrays.fill(enemyList, 0, enemyCount, null);
+        enemyCount = 0;
+        overflowCount = 0;
+    }
+
+    /**
+     * Indexes every bullet of the store that is not destroyed.
+     */
+    public void addBullets(BulletStore store) {
+        bulletStore = store;
+        for (int i = 0; i < store.size(); i++) {
+            int slot = store.slotAt(i);
+            if (store.isDestroyed(slot)) continue;
+
+            int cell = cell(store.getX(slot), store.getY(slot));
+            if (cell == NONE) {
+                if (overflowCount == overflow.length) {
+                    overflow = Arrays.copyOf(overflow, overflowCount * 2);
+                }
+                overflow[overflowCount++] = slot;
+            } else {
+                bullets.add(cell, slot);
+            }
+        }
+    }
+
+    public void addPlayer(Player player) {
+        if (playerCount == playerList.length) {
+            playerList = Arrays.copyOf(playerList, playerCount * 2);
+        }
+        playerList[playerCount] = player;
+        addTank(players, playerCount++, player.getX(), player.getY());
+    }
+
+    public void addEnemy(Enemy enemy) {
+        if (enemyCount == enemyList.length) {
+            enemyList = Arrays.copyOf(enemyList, enemyCount * 2);
+        }
+        enemyList[enemyCount] = enemy;
+        addTank(enemies, enemyCount++, enemy.getX(), enemy.getY());
+    }
+
+    /**
+     * True if any other indexed bullet is on the same tile as this one.
+     */
+    public boolean isBulletColliding(int slot) {
+        int x = bulletStore.getX(slot);
+        int y = bulletStore.getY(slot);
+        int cell = cell(x, y);
+        if (cell == NONE) {
+            for (int i = 0; i < overflowCount; i++) {
+                int other = overflow[i];
+                if (other != slot && bulletStore.getX(other) == x && bulletStore.getY(other) == y) return true;
+            }
+            return false;
+        }
+
+        for (int i = bullets.head[cell]; i != NONE; i = bullets.next[i]) {
+            if (bullets.items[i] != slot) return true;
+        }
+        return false;
+    }
+
+    /**
+     * True if an indexed bullet on the tile this one moves into is flying the opposite way,
+     * i.e. the two would swap tiles without ever sharing one.
+     */
+    public boolean isBulletCrossing(int slot) {
+        Direction direction = bulletStore.getDirection(slot);
+        Direction opposite = direction.opposite();
+        int nextX = bulletStore.getX(slot);
+        int nextY = bulletStore.getY(slot);
+        switch (direction) {
+            case UP -> nextY--;
+            case DOWN -> nextY++;
+            case LEFT -> nextX--;
+            case RIGHT -> nextX++;
+        }
+
+        int cell = cell(nextX, nextY);
+        if (cell == NONE) {
+            for (int i = 0; i < overflowCount; i++) {
+                int other = overflow[i];
+                if (bulletStore.getX(other) == nextX && bulletStore.getY(other) == nextY
+                        && bulletStore.getDirection(other) == opposite) return true;
+            }
+            return false;
+        }
+
+        for (int i = bullets.head[cell]; i != NONE; i = bullets.next[i]) {
+            if (bulletStore.getDirection(bullets.items[i]) == opposite) return true;
+        }
+        return false;
+    }
+
+    /**
+     * First active player, in the order they were added, whose body covers (x, y).
+     */
+    public Player findPlayerAt(int x, int y) {
+        int cell = cell(x, y);
+        if (cell == NONE) return null;
+
+        for (int i = players.head[cell]; i != NONE; i = players.next[i]) {
+            Player player = playerList[players.items[i]];
+            if (player.isActive() && !player.isDestroyed()) return player;
+        }
+        return null;
+    }
+
+    /**
+     * First enemy still alive, in the order they were added, whose body covers (x, y).
+     */
+    public Enemy findEnemyAt(int x, int y) {
+        int cell = cell(x, y);
+        if (cell == NONE) return null;
+
+        for (int i = enemies.head[cell]; i != NONE; i = enemies.next[i]) {
+            Enemy enemy = enemyList[enemies.items[i]];
+            if (!enemy.isDestroyed()) return enemy;
+        }
+        return null;
+    }
+
+    private int cell(int x, int y) {
+        int gx = x + MARGIN;
+        int gy = y + MARGIN;
+        if (gx < 0 || gx >= width || gy < 0 || gy >= height) return NONE;
+        return gy * width + gx;
+    }
+
+    private void addTank(Layer layer, int tank, int bottomRightX, int bottomRightY) {
+        for (int y = bottomRightY - (GameConstants.TANK_SIZE - 1); y <= bottomRightY; y++) {
+            for (int x = bottomRightX - (GameConstants.TANK_SIZE - 1); x <= bottomRightX; x++) {
+                int cell = cell(x, y);
+                if (cell != NONE) {
+                    layer.add(cell, tank);
+                }
+            }
+        }
+    }
+
+    // Entries of one kind: head/tail per cell, next per entry
+    private static final class Layer {
+        final int[] head;
+        final int[] tail;
+        int[] next;
+        int[] items;
+        int count;
+
+        Layer(int cells, int capacity) {
+            this.head = new int[cells];
+            this.tail = new int[cells];
+            this.items = new int[capacity];
+            this.next = new int[capacity];
+            Arrays.fill(head, NONE);
+        }
+
+        void add(int cell, int item) {
+            if (count == items.length) {
+                items = Arrays.copyOf(items, count * 2);
+                next = Arrays.copyOf(next, count * 2);
+            }
+            items[count] = item;
+            next[count] = NONE;
+            if (head[cell] == NONE) {
+                head[cell] = count;
+            } else {
+                next[tail[cell]] = count;
+            }
+            tail[cell] = count;
+            count++;
+        }
+
+        void clear() {
+            count = 0;
+            Arrays.fill(head, NONE);
+        }
+    }
+}
@@ -1,38 +1,11 @@
 package com.phaser.tank.util;
 
-import com.phaser.tank.model.Bullet;
 import com.phaser.tank.model.Direction;
 
 import java.util.*;
 
 public class Collisions {
 
-    /**
-     * Detects bullet-bullet collisions based on overlapping tile positions.
-     *
-     * @param bullets A collection of all active bullets
-     * @return A map of bullet IDs to the bullets that collided
-     */
-    public static Map<String, Bullet> detectBulletCollisions(Collection<Bullet> bullets) {
-        Map<String, Bullet> bulletsToDestroy = new HashMap<>();
-
-        List<Bullet> bulletList = new ArrayList<>(bullets);
-        int n = bulletList.size();
-
-        for (int i = 0; i < n; i++) {
-            Bullet a = bulletList.get(i);
-            for (int j = i + 1; j < n; j++) {
-                Bullet b = bulletList.get(j);
-                if (a.x == b.x && a.y == b.y) {
-                    bulletsToDestroy.put(a.id, a);
-                    bulletsToDestroy.put(b.id, b);
-                }
-            }
-        }
-
-        return bulletsToDestroy;
-    }
-
     /**
      * Check if a bullet is colliding with the base at tile (12, 25).
      */
@@ -1,6 +1,7 @@
 package com.phaser.tank.util;
 
 import com.phaser.tank.model.Direction;
+import com.phaser.tank.model.LevelGrid;
 
 import java.util.List;
 import java.util.Random;
@@ -24,14 +25,14 @@ public class EnemyMovementHelper {
         };
     }
 
-    public static Direction chooseRandomValidDirection(List<Direction> candidates, int currentX, int currentY, List<String> levelMap) {
+    public static Direction chooseRandomValidDirection(List<Direction> candidates, int currentX, int currentY, LevelGrid level) {
         Random random = new Random();
 
         // Filter only valid directions based on walkability
         List<Direction> validDirections = candidates.stream()
                 .filter(dir -> {
                     int[] next = getNextPosition(currentX, currentY, dir);
-                    return MovementValidator.canMove(next[0], next[1], levelMap);
+                    return MovementValidator.canMove(next[0], next[1], level);
                 }).toList();
 
         if (validDirections.isEmpty()) return null;
@@ -1,48 +1,217 @@
 package com.phaser.tank.util;
 
-import java.util.*;
+import com.phaser.tank.model.LevelGrid;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A* search for a 2x2 tank over a room's level. Nodes are tank positions (the bottom-right
+ * tile of the body) where {@link LevelGrid#canStand} holds, moves are one tile in any of the
+ * four directions and the heuristic is the Manhattan distance.
+ *
+ * All search state lives in primitive arrays reused between searches: the open set is a
+ * binary heap of cells with an index from cell to heap slot, and a search stamp tells which
+ * entries belong to the current search so nothing has to be cleared.
+ *
+ * Found paths are kept in a small LRU cache keyed by (start, goal). The cache is dropped as
+ * soon as the level's version changes, so a destroyed brick never leaves a stale path behind.
+ * One instance per room, used from the room's simulation thread only.
+ */
 public class EnemyPathFinder {
 
-    public static Queue<int[]> findShortestPath(int startRow, int startCol, int targetRow, int targetCol, List<String> levelMap) {
-        int rows = levelMap.size();
-        int cols = levelMap.get(0).length();
-        boolean[][] visited = new boolean[rows][cols];
-        int[][][] parent = new int[rows][cols][2];
+    static final int CACHE_SIZE = 64;
+    private static final int[] NO_PATH = new int[0];
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {-1, 1, 0, 0};
+
+    private final LevelGrid level;
+    private final int cols;
+
+    private final int[] cost;
+    private final int[] parent;
+    private final int[] stamp;
+    private final boolean[] closed;
+    private int search;
+
+    private final int[] heap;
+    private final int[] heapKey;
+    private final int[] heapIndex;
+    private int heapSize;
+
+    private final Map<Long, int[]> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private long cacheVersion = -1;
+
+    public EnemyPathFinder(LevelGrid level) {
+        this.level = level;
+        this.cols = level.getCols();
+        int cells = cols * level.getRows();
+        this.cost = new int[cells];
+        this.parent = new int[cells];
+        this.stamp = new int[cells];
+        this.closed = new boolean[cells];
+        this.heap = new int[cells];
+        this.heapKey = new int[cells];
+        this.heapIndex = new int[cells];
+    }
+
+    /**
+     * Positions from the one after (startX, startY) up to and including the goal, packed as
+     * {@code y * cols + x}; decode with {@link #pathX} and {@link #pathY}. Empty when the goal is
+     * unreachable or equal to the start. The returned array is shared, do not modify it.
+     */
+    public int[] findPath(int startX, int startY, int goalX, int goalY) {
+        if (!level.isWithinBounds(startX, startY) || !level.canStand(goalX, goalY)) return NO_PATH;
+
+        if (cacheVersion != level.getVersion()) {
+            cache.clear();
+            cacheVersion = level.getVersion();
+        }
+
+        int start = startY * cols + startX;
+        int goal = goalY * cols + goalX;
+        long key = (long) start << 32 | goal;
 
-        Queue<int[]> queue = new ArrayDeque<>();
-        queue.add(new int[]{startRow, startCol});
-        visited[startRow][startCol] = true;
+        int[] path = cache.get(key);
+        if (path == null) {
+            path = search(start, goal);
+            cache.put(key, path);
+        }
+        return path;
+    }
 
-        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    public int pathX(int cell) {
+        return cell % cols;
+    }
 
-        while (!queue.isEmpty()) {
-            int[] current = queue.poll();
-            int curRow = current[0], curCol = current[1];
+    public int pathY(int cell) {
+        return cell / cols;
+    }
 
-            if (curRow == targetRow && curCol == targetCol) break;
+    private int[] search(int start, int goal) {
+        if (start == goal) return NO_PATH;
 
-            for (int[] dir : directions) {
-                int newRow = curRow + dir[0];
-                int newCol = curCol + dir[1];
-                if (visited[newRow][newCol]) continue;
-                if (!MovementValidator.canMove(newRow, newCol, levelMap)) continue;
+        nextSearch();
+        open(start, 0, -1, goal);
 
-                visited[newRow][newCol] = true;
-                parent[newRow][newCol] = new int[]{curRow, curCol};
-                queue.add(new int[]{newRow, newCol});
+        while (heapSize > 0) {
+            int cell = pop();
+            if (cell == goal) return buildPath(start, goal);
+            closed[cell] = true;
+
+            int x = cell % cols;
+            int y = cell / cols;
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (!level.canStand(nx, ny)) continue;
+
+                int neighbour = ny * cols + nx;
+                int nextCost = cost[cell] + 1;
+                if (stamp[neighbour] == search && (closed[neighbour] || cost[neighbour] <= nextCost)) continue;
+
+                open(neighbour, nextCost, cell, goal);
             }
         }
+        return NO_PATH;
+    }
+
+    private void nextSearch() {
+        search++;
+        if (search == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            search = 1;
+        }
+        heapSize = 0;
+    }
+
+    // Adds the cell to the open set or lowers its cost if it is already there
+    private void open(int cell, int cellCost, int from, int goal) {
+        boolean known = stamp[cell] == search;
+        stamp[cell] = search;
+        closed[cell] = false;
+        cost[cell] = cellCost;
+        parent[cell] = from;
+
+        int key = cellCost + heuristic(cell, goal);
+        if (known && heapIndex[cell] >= 0) {
+            heapKey[heapIndex[cell]] = key;
+            siftUp(heapIndex[cell]);
+            return;
+        }
+
+        heap[heapSize] = cell;
+        heapKey[heapSize] = key;
+        heapIndex[cell] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int pop() {
+        int top = heap[0];
+        heapIndex[top] = -1;
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapKey[0] = heapKey[heapSize];
+            heapIndex[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int up = (slot - 1) / 2;
+            if (heapKey[up] <= heapKey[slot]) break;
+            swap(slot, up);
+            slot = up;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int left = slot * 2 + 1;
+            if (left >= heapSize) break;
+
+            int child = left + 1 < heapSize && heapKey[left + 1] < heapKey[left] ? left + 1 : left;
+            if (heapKey[slot] <= heapKey[child]) break;
+            swap(slot, child);
+            slot = child;
+        }
+    }
 
-        LinkedList<int[]> path = new LinkedList<>();
-        int[] curr = {targetRow, targetCol};
-        if (!visited[targetRow][targetCol]) return path;
+    private void swap(int a, int b) {
+        int cell = heap[a];
+        int key = heapKey[a];
+        heap[a] = heap[b];
+        heapKey[a] = heapKey[b];
+        heap[b] = cell;
+        heapKey[b] = key;
+        heapIndex[heap[a]] = a;
+        heapIndex[heap[b]] = b;
+    }
+
+    private int heuristic(int cell, int goal) {
+        return Math.abs(cell % cols - goal % cols) + Math.abs(cell / cols - goal / cols);
+    }
+
+    private int[] buildPath(int start, int goal) {
+        int length = 0;
+        for (int cell = goal; cell != start; cell = parent[cell]) {
+            length++;
+        }
 
-        while (!(curr[0] == startRow && curr[1] == startCol)) {
-            path.addFirst(curr);
-            curr = parent[curr[0]][curr[1]];
+        int[] path = new int[length];
+        int i = length;
+        for (int cell = goal; cell != start; cell = parent[cell]) {
+            path[--i] = cell;
         }
-        path.poll(); // remove current tile (start position)
         return path;
     }
 }
@@ -18,7 +18,7 @@ public class EnemySpawner {
         return SPAWN_POINTS.get(new Random().nextInt(SPAWN_POINTS.size()));
     }
 
-    public static Enemy spawnEnemy(String id) {
+    public static Enemy spawnEnemy(int id) {
         int[] spawnTile = getRandomSpawnTile();
         int spawnCol = spawnTile[0];
         int spawnRow = spawnTile[1];
@@ -0,0 +1,54 @@
+package com.phaser.tank.util;
+
+import java.util.BitSet;
+
+/**
+ * Hands out small integer ids for entities of one room.
+ * Ids fit in an unsigned 16-bit field so the binary protocol can send them in two bytes.
+ *
+ * Ids count up and wrap around after {@link #MAX_ID}. Released ids are only reused once the
+ * counter comes round to them again, so an id that just left the game is not handed to a new
+ * entity while clients may still hold events for the old one. Ids still in use when the counter
+ * wraps are skipped.
+ */
+public class EntityIdAllocator {
+
+    public static final int MAX_ID = 0xFFFF;
+
+    // Grows with the highest id handed out, at most 8 KB
+    private final BitSet inUse = new BitSet();
+    private int next = 1;
+    private int used;
+
+    /**
+     * Next free id, or throws if every id of the room is taken.
+     */
+    public int next() {
+        if (used == MAX_ID) {
+            throw new IllegalStateException("No free entity ids left");
+        }
+
+        int id = inUse.nextClearBit(next);
+        if (id > MAX_ID) {
+            id = inUse.nextClearBit(1);
+        }
+        inUse.set(id);
+        used++;
+        next = id == MAX_ID ? 1 : id + 1;
+        return id;
+    }
+
+    /**
+     * Makes the id available again once the counter wraps back to it.
+     */
+    public void release(int id) {
+        if (id < 1 || id > MAX_ID || !inUse.get(id)) return;
+
+        inUse.clear(id);
+        used--;
+    }
+
+    public int getUsedCount() {
+        return used;
+    }
+}
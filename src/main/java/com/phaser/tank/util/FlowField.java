@@ -0,0 +1,187 @@
+package com.phaser.tank.util;
+
+import com.phaser.tank.model.Direction;
+import com.phaser.tank.model.LevelGrid;
+
+import java.util.Arrays;
+
+/**
+ * Distance, in tank steps, from every tank position of a level to the base, shared by all
+ * enemies of a room. A tank position is the bottom-right tile of its 2x2 body, and only
+ * positions where {@link LevelGrid#canStand} holds are walkable.
+ *
+ * The goal is every position within {@link #GOAL_RANGE} tiles of the base, close enough to
+ * shoot at it. Destroying a brick can only open positions, so it is handled
+ * by relaxing distances outward from the opened positions; anything that closes a position
+ * falls back to a full recompute.
+ */
+public final class FlowField {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int GOAL_RANGE = 3;
+
+    private final LevelGrid level;
+    private final int cols;
+    private final int rows;
+    private final int[] distance;
+    private final boolean[] open;
+    private final int[] queue;
+    private final boolean[] queued;
+
+    public FlowField(LevelGrid level) {
+        this.level = level;
+        this.cols = level.getCols();
+        this.rows = level.getRows();
+        this.distance = new int[cols * rows];
+        this.open = new boolean[cols * rows];
+        this.queue = new int[cols * rows];
+        this.queued = new boolean[cols * rows];
+        recompute();
+    }
+
+    /**
+     * Full multi-source BFS from the goal positions.
+     */
+    public void recompute() {
+        Arrays.fill(distance, UNREACHABLE);
+        int tail = 0;
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                int cell = y * cols + x;
+                open[cell] = level.canStand(x, y);
+                if (open[cell] && isGoal(x, y)) {
+                    distance[cell] = 0;
+                    queued[cell] = true;
+                    queue[tail++] = cell;
+                }
+            }
+        }
+        relax(tail);
+    }
+
+    /**
+     * Updates the field after the tile at (x, y) changed in the level.
+     */
+    public void onTileChanged(int x, int y) {
+        int tail = 0;
+        for (int py = y; py <= y + 1; py++) {
+            for (int px = x; px <= x + 1; px++) {
+                if (!level.isWithinBounds(px, py)) continue;
+
+                int cell = py * cols + px;
+                boolean nowOpen = level.canStand(px, py);
+                if (nowOpen == open[cell]) continue;
+
+                if (!nowOpen) {
+                    // A position closed, distances may grow anywhere behind it
+                    recompute();
+                    return;
+                }
+
+                open[cell] = true;
+                int best = isGoal(px, py) ? 0 : bestNeighbourDistance(px, py);
+                if (best < distance[cell]) {
+                    distance[cell] = best;
+                    queued[cell] = true;
+                    queue[tail++] = cell;
+                }
+            }
+        }
+        relax(tail);
+    }
+
+    // Propagates lowered distances from the queued cells; a cell is never in the queue twice
+    private void relax(int tail) {
+        int head = 0;
+        int size = tail;
+        while (size > 0) {
+            int cell = queue[head];
+            head = (head + 1) % queue.length;
+            size--;
+            queued[cell] = false;
+
+            int x = cell % cols;
+            int y = cell / cols;
+            int next = distance[cell] + 1;
+            for (Direction direction : Direction.values()) {
+                int nx = x + dx(direction);
+                int ny = y + dy(direction);
+                if (nx < 0 || nx >= cols || ny < 0 || ny >= rows) continue;
+
+                int neighbour = ny * cols + nx;
+                if (!open[neighbour] || distance[neighbour] <= next) continue;
+
+                distance[neighbour] = next;
+                if (!queued[neighbour]) {
+                    queued[neighbour] = true;
+                    queue[(head + size) % queue.length] = neighbour;
+                    size++;
+                }
+            }
+        }
+    }
+
+    private int bestNeighbourDistance(int x, int y) {
+        int best = UNREACHABLE;
+        for (Direction direction : Direction.values()) {
+            int d = getDistance(x + dx(direction), y + dy(direction));
+            if (d != UNREACHABLE && d + 1 < best) {
+                best = d + 1;
+            }
+        }
+        return best;
+    }
+
+    public int getDistance(int x, int y) {
+        if (x < 0 || x >= cols || y < 0 || y >= rows) return UNREACHABLE;
+        return distance[y * cols + x];
+    }
+
+    public boolean isAtGoal(int x, int y) {
+        return getDistance(x, y) == 0;
+    }
+
+    /**
+     * Direction of the neighbouring position closest to the base, or null if (x, y) is already
+     * at the goal or cannot reach it.
+     */
+    public Direction nextDirection(int x, int y) {
+        int current = getDistance(x, y);
+        if (current == 0 || current == UNREACHABLE) return null;
+
+        Direction best = null;
+        int bestDistance = current;
+        for (Direction direction : Direction.values()) {
+            int d = getDistance(x + dx(direction), y + dy(direction));
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = direction;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Direction a tank at (x, y) has to face to shoot toward the base.
+     */
+    public static Direction directionToBase(int x, int y) {
+        int dx = GameConstants.BASE_X - x;
+        int dy = GameConstants.BASE_Y - y;
+        if (Math.abs(dx) > Math.abs(dy)) {
+            return dx > 0 ? Direction.RIGHT : Direction.LEFT;
+        }
+        return dy >= 0 ? Direction.DOWN : Direction.UP;
+    }
+
+    private static boolean isGoal(int x, int y) {
+        return Math.abs(x - GameConstants.BASE_X) <= GOAL_RANGE && Math.abs(y - GameConstants.BASE_Y) <= GOAL_RANGE;
+    }
+
+    private static int dx(Direction direction) {
+        return direction == Direction.LEFT ? -1 : direction == Direction.RIGHT ? 1 : 0;
+    }
+
+    private static int dy(Direction direction) {
+        return direction == Direction.UP ? -1 : direction == Direction.DOWN ? 1 : 0;
+    }
+}
@@ -9,8 +9,41 @@ public class GameConstants {
 
     public static final int BULLET_SIZE = 1;  // In tile units
     public static final int TANK_SIZE = 2;
+    public static final int MAP_COLS = 26;
+    public static final int MAP_ROWS = 26;
+    public static final int MAX_PLAYERS = 4;
+
+    // Simulation runs at a fixed step, everything slower is a divisor of it
+    public static final int TICK_MS = 50;
+    public static final int BULLET_STEP_TICKS = ticksFor(50);
+    // Tiles a bullet travels per bullet step; every tile on the way is checked for hits
+    public static final int BULLET_SPEED = 1;
+    // Simulation time enemy AI may use per tick before far or extra enemies fall back to cheaper behaviour
+    public static final long AI_BUDGET_NANOS = 2_000_000;
+    // Player commands a room buffers between two ticks; more are dropped
+    public static final int INPUT_QUEUE_CAPACITY = 256;
+    public static final int BONUS_LIFETIME_TICKS = ticksFor(5000);
+    public static final int BONUS_RESPAWN_TICKS = ticksFor(6000);
+
+    // Room reaper: how often it runs, how long a room may go without input, how long a finished room stays open
+    public static final long ROOM_REAP_INTERVAL_MS = 10_000;
+    public static final long ROOM_IDLE_TIMEOUT_MS = 5 * 60_000;
+    public static final long ROOM_FINISHED_LINGER_MS = 30_000;
+
+    // How often each room logs its broadcast counters
+    public static final int STATS_LOG_TICKS = ticksFor(60_000);
+
+    // How many past ticks clients can use as a delta baseline before they get a keyframe
+    public static final int SNAPSHOT_HISTORY = ticksFor(3200);
 
     public static final List<String> BONUS_TYPES = List.of(
             "helmet", "boat", "gun", "grenade", "star", "shovel", "clock", "tank"
     );
+
+    /**
+     * Converts a duration into a whole number of simulation ticks (at least one).
+     */
+    public static int ticksFor(long millis) {
+        return (int) Math.max(1, Math.round((double) millis / TICK_MS));
+    }
 }
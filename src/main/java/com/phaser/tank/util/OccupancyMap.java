@@ -0,0 +1,121 @@
+package com.phaser.tank.util;
+
+import com.phaser.tank.model.Enemy;
+import com.phaser.tank.model.LevelGrid;
+import com.phaser.tank.model.Player;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Bitset view of which tiles are taken by tanks, one int per map row with bit x set for column x.
+ *
+ * Two layers: tank bodies, and bodies reserved by enemies that already moved this step.
+ * Walls are not tracked here; the level's clearance map answers that.
+ * A tank at (x, y) covers columns x-1..x of rows y-1..y, so every test is two row lookups
+ * and a mask.
+ */
+public class OccupancyMap {
+
+    private final int cols;
+    private final int rows;
+
+    private final int[] tanks;
+    private final int[] reserved;
+    // Bodies covering each cell, so removing one tank keeps the bits of any tank it overlaps
+    private final byte[] tankCount;
+
+    private LevelGrid level;
+
+    public OccupancyMap(int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+        this.tanks = new int[rows];
+        this.reserved = new int[rows];
+        this.tankCount = new byte[cols * rows];
+    }
+
+    /**
+     * Refreshes the map for the current tick: active players and enemies from scratch,
+     * and no reservations.
+     */
+    public void rebuild(LevelGrid level, Collection<Player> players, Collection<Enemy> enemies) {
+        this.level = level;
+
+        Arrays.fill(tanks, 0);
+        Arrays.fill(reserved, 0);
+        Arrays.fill(tankCount, (byte) 0);
+
+        for (Player player : players) {
+            if (player.isActive()) {
+                addTank(player.getX(), player.getY());
+            }
+        }
+        for (Enemy enemy : enemies) {
+            addTank(enemy.getX(), enemy.getY());
+        }
+    }
+
+    public void addTank(int x, int y) {
+        for (int row = y - 1; row <= y; row++) {
+            for (int col = x - 1; col <= x; col++) {
+                if (!isInside(col, row)) continue;
+                tankCount[row * cols + col]++;
+                tanks[row] |= 1 << col;
+            }
+        }
+    }
+
+    public void removeTank(int x, int y) {
+        for (int row = y - 1; row <= y; row++) {
+            for (int col = x - 1; col <= x; col++) {
+                if (!isInside(col, row)) continue;
+                int cell = row * cols + col;
+                if (tankCount[cell] > 0 && --tankCount[cell] == 0) {
+                    tanks[row] &= ~(1 << col);
+                }
+            }
+        }
+    }
+
+    public void reserve(int x, int y) {
+        int mask = bodyMask(x);
+        if (y - 1 >= 0 && y - 1 < rows) reserved[y - 1] |= mask;
+        if (y >= 0 && y < rows) reserved[y] |= mask;
+    }
+
+    /**
+     * True if all four tiles of a tank at (x, y) are inside the map and drivable.
+     */
+    public boolean isWalkable(int x, int y) {
+        return level != null && level.canStand(x, y);
+    }
+
+    /**
+     * True if a tank at (x, y) overlaps no tank body and no reservation.
+     * Callers moving a tank remove its own body first.
+     */
+    public boolean isFree(int x, int y) {
+        int mask = bodyMask(x);
+        for (int row = y - 1; row <= y; row++) {
+            if (row < 0 || row >= rows) continue;
+            if (((tanks[row] | reserved[row]) & mask) != 0) return false;
+        }
+        return true;
+    }
+
+    public boolean canEnter(int x, int y) {
+        return isWalkable(x, y) && isFree(x, y);
+    }
+
+    private int bodyMask(int x) {
+        int mask = 0;
+        if (x - 1 >= 0 && x - 1 < cols) mask |= 1 << (x - 1);
+        if (x >= 0 && x < cols) mask |= 1 << x;
+        return mask;
+    }
+
+    private boolean isInside(int col, int row) {
+        return col >= 0 && col < cols && row >= 0 && row < rows;
+    }
+}
@@ -0,0 +1,161 @@
+package com.phaser.tank.handler;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Overflow policies and acknowledgement of the outbound queue. The writer executor only runs
+ * when the test says so, which lets the queue fill up like it does for a slow client.
+ */
+class OutboundSessionTest {
+
+    private static final class ManualExecutor implements Executor {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    private final ManualExecutor writer = new ManualExecutor();
+    private final StubWebSocketSession socket = new StubWebSocketSession();
+
+    private OutboundSession outbound(int capacity, OverflowPolicy policy) {
+        return new OutboundSession(socket, new OutboundSettings(capacity, policy, writer));
+    }
+
+    @Test
+    void coalesceDropsEveryQueuedDroppableFrame() {
+        OutboundSession outbound = outbound(3, OverflowPolicy.COALESCE);
+        assertTrue(outbound.send(new TextMessage("r1")));
+        assertTrue(outbound.sendDroppable(new TextMessage("d1")));
+        assertTrue(outbound.sendDroppable(new TextMessage("d2")));
+        assertTrue(outbound.sendDroppable(new TextMessage("d3")));
+
+        assertEquals(2, outbound.getQueuedFrames());
+        assertEquals(2, outbound.getDroppedFrames());
+
+        writer.runAll();
+        assertEquals(List.of("r1", "d3"), socket.getSentText());
+        assertTrue(socket.isOpen());
+    }
+
+    @Test
+    void dropOldestDropsOnlyTheOldestDroppableFrame() {
+        OutboundSession outbound = outbound(3, OverflowPolicy.DROP_OLDEST);
+        outbound.send(new TextMessage("r1"));
+        outbound.sendDroppable(new TextMessage("d1"));
+        outbound.sendDroppable(new TextMessage("d2"));
+        assertTrue(outbound.sendDroppable(new TextMessage("d3")));
+
+        assertEquals(3, outbound.getQueuedFrames());
+        assertEquals(1, outbound.getDroppedFrames());
+
+        writer.runAll();
+        assertEquals(List.of("r1", "d2", "d3"), socket.getSentText());
+    }
+
+    @Test
+    void disconnectPolicyClosesTheSlowClient() {
+        OutboundSession outbound = outbound(2, OverflowPolicy.DISCONNECT);
+        outbound.sendDroppable(new TextMessage("d1"));
+        outbound.sendDroppable(new TextMessage("d2"));
+
+        assertFalse(outbound.sendDroppable(new TextMessage("d3")));
+        assertEquals(0, outbound.getQueuedFrames());
+        assertFalse(outbound.send(new TextMessage("late")));
+
+        // The close itself runs on the writer executor
+        assertNull(socket.getCloseStatus());
+        writer.runAll();
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, socket.getCloseStatus());
+        assertTrue(socket.getSent().isEmpty());
+    }
+
+    @Test
+    void blockingCloseDoesNotStallTheSender() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        socket.setCloseBlocker(release);
+        ExecutorService realWriter = Executors.newSingleThreadExecutor();
+        try {
+            AtomicInteger submitted = new AtomicInteger();
+            OutboundSession outbound = new OutboundSession(socket,
+                    new OutboundSettings(1, OverflowPolicy.DISCONNECT, task -> {
+                        // The first task is the writer, left queued so the queue fills up;
+                        // the second is the close, which really runs
+                        if (submitted.getAndIncrement() == 0) writer.execute(task);
+                        else realWriter.execute(task);
+                    }));
+            outbound.sendDroppable(new TextMessage("d1"));
+
+            long started = System.nanoTime();
+            assertFalse(outbound.sendDroppable(new TextMessage("d2")));
+            assertFalse(outbound.send(new TextMessage("late")));
+            assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(1), "sender waited for close");
+            assertEquals(0, outbound.getQueuedFrames(), "the lock is free while close blocks");
+            assertNull(socket.getCloseStatus());
+
+            release.countDown();
+            realWriter.shutdown();
+            assertTrue(realWriter.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(CloseStatus.SESSION_NOT_RELIABLE, socket.getCloseStatus());
+        } finally {
+            release.countDown();
+            realWriter.shutdownNow();
+        }
+    }
+
+    @Test
+    void coalesceDisconnectsWhenOnlyReliableFramesAreQueued() {
+        OutboundSession outbound = outbound(2, OverflowPolicy.COALESCE);
+        outbound.send(new TextMessage("r1"));
+        outbound.send(new TextMessage("r2"));
+
+        assertFalse(outbound.send(new TextMessage("r3")));
+        writer.runAll();
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, socket.getCloseStatus());
+    }
+
+    @Test
+    void ackedTickAdvancesOnlyOnceTheFrameIsWritten() {
+        OutboundSession outbound = outbound(8, OverflowPolicy.COALESCE);
+        outbound.sendSnapshot(new TextMessage("t5"), 5);
+        outbound.sendSnapshot(new TextMessage("t6"), 6);
+        assertEquals(-1, outbound.getAckedTick());
+
+        writer.runAll();
+        assertEquals(6, outbound.getAckedTick());
+
+        // Reliable frames carry no snapshot and leave the baseline alone
+        outbound.send(new TextMessage("start"));
+        writer.runAll();
+        assertEquals(6, outbound.getAckedTick());
+    }
+
+    @Test
+    void failedWriteDoesNotAcknowledgeAndClosesTheQueue() {
+        OutboundSession outbound = outbound(8, OverflowPolicy.COALESCE);
+        socket.setFailSends(true);
+        outbound.sendSnapshot(new TextMessage("t1"), 1);
+
+        writer.runAll();
+        assertEquals(-1, outbound.getAckedTick());
+        assertFalse(outbound.sendSnapshot(new TextMessage("t2"), 2));
+    }
+}
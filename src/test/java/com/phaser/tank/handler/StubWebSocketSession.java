@@ -0,0 +1,161 @@
+package com.phaser.tank.handler;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * In-memory WebSocket session for tests: records what was sent and how it was closed.
+ */
+public class StubWebSocketSession implements WebSocketSession {
+
+    private final String id = UUID.randomUUID().toString();
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final List<WebSocketMessage<?>> sent = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean open = true;
+    private volatile boolean failSends = false;
+    private volatile CloseStatus closeStatus;
+    private volatile CountDownLatch closeBlocker;
+
+    public List<WebSocketMessage<?>> getSent() {
+        return sent;
+    }
+
+    /**
+     * Text payloads sent so far, in order.
+     */
+    public List<String> getSentText() {
+        synchronized (sent) {
+            List<String> texts = new ArrayList<>();
+            for (WebSocketMessage<?> message : sent) {
+                if (message.getPayload() instanceof String text) {
+                    texts.add(text);
+                }
+            }
+            return texts;
+        }
+    }
+
+    public void setOpen(boolean open) {
+        this.open = open;
+    }
+
+    public void setFailSends(boolean failSends) {
+        this.failSends = failSends;
+    }
+
+    /**
+     * Makes close() block until the latch is released, like a peer that stopped reading.
+     */
+    public void setCloseBlocker(CountDownLatch closeBlocker) {
+        this.closeBlocker = closeBlocker;
+    }
+
+    public CloseStatus getCloseStatus() {
+        return closeStatus;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public URI getUri() {
+        return null;
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return new HttpHeaders();
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public Principal getPrincipal() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return null;
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return null;
+    }
+
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getTextMessageSizeLimit() {
+        return 0;
+    }
+
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getBinaryMessageSizeLimit() {
+        return 0;
+    }
+
+    @Override
+    public List<WebSocketExtension> getExtensions() {
+        return List.of();
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (failSends) {
+            throw new IOException("broken pipe");
+        }
+        sent.add(message);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        close(CloseStatus.NORMAL);
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        CountDownLatch blocker = closeBlocker;
+        if (blocker != null) {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        open = false;
+        closeStatus = status;
+    }
+}
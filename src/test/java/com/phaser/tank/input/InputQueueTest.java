@@ -0,0 +1,105 @@
+package com.phaser.tank.input;
+
+import com.phaser.tank.model.Direction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputQueueTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int PER_PRODUCER = 50_000;
+
+    @Test
+    void manyProducersLoseNothingAndKeepTheirOrder() throws Exception {
+        InputQueue queue = new InputQueue(64);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong rejected = new AtomicLong();
+
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            long producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long seq = 0; seq < PER_PRODUCER; seq++) {
+                    // A full queue refuses the command; retry until the consumer catches up
+                    while (!queue.offer(producer << 32 | seq)) {
+                        rejected.incrementAndGet();
+                        // Yield rather than spin so this also finishes on a single core
+                        Thread.yield();
+                    }
+                }
+            }, "producer-" + p);
+            // A failed assertion must not leave spinning producers behind
+            thread.setDaemon(true);
+            thread.start();
+            producers.add(thread);
+        }
+
+        long[] nextExpected = new long[PRODUCERS];
+        long[] batch = new long[16];
+        long received = 0;
+        start.countDown();
+        while (received < (long) PRODUCERS * PER_PRODUCER) {
+            int count = queue.drainTo(batch);
+            for (int i = 0; i < count; i++) {
+                int producer = (int) (batch[i] >>> 32);
+                long seq = batch[i] & 0xFFFFFFFFL;
+                assertEquals(nextExpected[producer], seq, "producer " + producer + " out of order, lost or duplicated");
+                nextExpected[producer]++;
+            }
+            received += count;
+            if (count == 0) Thread.yield();
+        }
+
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        for (long expected : nextExpected) {
+            assertEquals(PER_PRODUCER, expected);
+        }
+        assertEquals(0, queue.drainTo(batch), "nothing beyond what was offered");
+        assertTrue(rejected.get() > 0, "the small queue must have filled up at least once");
+    }
+
+    @Test
+    void rejectsCommandsWhenFull() {
+        InputQueue queue = new InputQueue(6);
+        assertEquals(8, queue.capacity());
+
+        for (int i = 0; i < queue.capacity(); i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(99));
+
+        long[] out = new long[3];
+        assertEquals(3, queue.drainTo(out));
+        assertArrayEquals(new long[]{0, 1, 2}, out);
+
+        assertTrue(queue.offer(8));
+        long[] rest = new long[16];
+        assertEquals(6, queue.drainTo(rest));
+        assertEquals(8, rest[5]);
+    }
+
+    @Test
+    void commandsRoundTrip() {
+        long move = InputCommand.move(3, Direction.LEFT);
+        assertEquals(InputCommand.MOVE, InputCommand.type(move));
+        assertEquals(3, InputCommand.playerId(move));
+        assertEquals(Direction.LEFT, InputCommand.direction(move));
+
+        long fire = InputCommand.fire(4);
+        assertEquals(InputCommand.FIRE, InputCommand.type(fire));
+        assertEquals(4, InputCommand.playerId(fire));
+    }
+}
@@ -0,0 +1,141 @@
+package com.phaser.tank.manager;
+
+import com.phaser.tank.handler.OutboundSession;
+import com.phaser.tank.handler.OutboundSettings;
+import com.phaser.tank.handler.OverflowPolicy;
+import com.phaser.tank.handler.StubWebSocketSession;
+import com.phaser.tank.model.Enemy;
+import com.phaser.tank.model.MatchResult;
+import com.phaser.tank.model.Player;
+import com.phaser.tank.model.Room;
+import com.phaser.tank.model.RoomState;
+import com.phaser.tank.model.WaveConfig;
+import com.phaser.tank.protocol.WireFormat;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plays a one-enemy wave to a victory and moves the room on to the next level.
+ */
+class LevelProgressionTest {
+
+    private static final long TIMEOUT_MS = 10_000;
+
+    @Test
+    void clearedWaveWinsAndAdvancesToNextLevel() throws Exception {
+        RoomManager manager = new RoomManager();
+        OutboundSettings settings = new OutboundSettings(256, OverflowPolicy.COALESCE, Runnable::run);
+        StubWebSocketSession creator = new StubWebSocketSession();
+        StubWebSocketSession joiner = new StubWebSocketSession();
+
+        String roomId = manager.createRoom(new OutboundSession(creator, settings), "1", WireFormat.JSON);
+        assertNotNull(roomId);
+        Room room = manager.getRoomBySession(creator);
+        try {
+            WaveConfig oneEnemy = new WaveConfig();
+            oneEnemy.setTotalEnemies(1);
+            oneEnemy.setMaxAlive(1);
+            oneEnemy.setFirstSpawnMs(0);
+            oneEnemy.setSpawnIntervalMs(50);
+            room.setWaveConfig(oneEnemy);
+
+            assertFalse(manager.advanceLevel(room), "a waiting room cannot advance");
+
+            // The second player starts the match
+            assertTrue(manager.joinRoom(roomId, new OutboundSession(joiner, settings), WireFormat.JSON));
+            await(() -> room.getState() == RoomState.RUNNING, "match start");
+            assertFalse(manager.advanceLevel(room), "a running room cannot advance");
+
+            // Shoot down whatever has spawned until the wave is cleared
+            await(() -> {
+                room.execute(() -> {
+                    for (Enemy enemy : new ArrayList<>(room.getEnemies())) {
+                        room.damageEnemy(enemy);
+                    }
+                });
+                return room.getState() == RoomState.FINISHED;
+            }, "wave cleared");
+            assertEquals(MatchResult.VICTORY, room.getMatchResult());
+            await(() -> hasMessage(creator, "\"type\":\"game_over\""), "game_over");
+            assertTrue(hasMessage(joiner, "\"result\":\"victory\""));
+            assertTrue(hasMessage(joiner, "\"reason\":\"wave_cleared\""));
+
+            // Nobody joins a finished match; the room only ticks again with the next level
+            StubWebSocketSession late = new StubWebSocketSession();
+            assertFalse(manager.joinRoom(roomId, new OutboundSession(late, settings), WireFormat.JSON));
+            assertNull(manager.getRoomBySession(late));
+
+            assertTrue(manager.advanceLevel(room));
+            await(() -> "2".equals(room.getLevelName()), "next level");
+            await(() -> hasMessage(creator, "\"type\":\"level_start\""), "level_start");
+            assertTrue(hasMessage(joiner, "\"level\":\"2\""));
+            assertNull(room.getMatchResult());
+            await(() -> room.getState() == RoomState.RUNNING, "match restart");
+            assertFalse(manager.advanceLevel(room), "level 2 is not won yet");
+        } finally {
+            creator.setOpen(false);
+            joiner.setOpen(false);
+            manager.reapRooms(System.currentTimeMillis());
+        }
+    }
+
+    @Test
+    void lastLivingPlayerLeavingEndsInDefeat() throws Exception {
+        RoomManager manager = new RoomManager();
+        OutboundSettings settings = new OutboundSettings(256, OverflowPolicy.COALESCE, Runnable::run);
+        StubWebSocketSession creator = new StubWebSocketSession();
+        StubWebSocketSession joiner = new StubWebSocketSession();
+
+        String roomId = manager.createRoom(new OutboundSession(creator, settings), "1", WireFormat.JSON);
+        assertNotNull(roomId);
+        Room room = manager.getRoomBySession(creator);
+        try {
+            WaveConfig noEnemies = new WaveConfig();
+            noEnemies.setFirstSpawnMs(60_000);
+            room.setWaveConfig(noEnemies);
+
+            assertTrue(manager.joinRoom(roomId, new OutboundSession(joiner, settings), WireFormat.JSON));
+            await(() -> room.getState() == RoomState.RUNNING, "match start");
+
+            // The creator is shot down while the joiner is still alive
+            Player fallen = manager.getPlayerBySession(creator);
+            await(() -> {
+                room.execute(() -> {
+                    if (!fallen.isDestroyed()) room.damagePlayer(fallen);
+                });
+                return fallen.isDestroyed();
+            }, "creator destroyed");
+            assertEquals(RoomState.RUNNING, room.getState());
+
+            // Then the only living player disconnects
+            joiner.setOpen(false);
+            manager.removeSession(joiner);
+            await(() -> room.getState() == RoomState.FINISHED, "match end");
+            assertEquals(MatchResult.DEFEAT, room.getMatchResult());
+            await(() -> hasMessage(creator, "\"reason\":\"players_destroyed\""), "game_over");
+            assertTrue(hasMessage(creator, "\"result\":\"defeat\""));
+        } finally {
+            creator.setOpen(false);
+            joiner.setOpen(false);
+            manager.reapRooms(System.currentTimeMillis());
+        }
+    }
+
+    private static boolean hasMessage(StubWebSocketSession session, String fragment) {
+        List<String> texts = session.getSentText();
+        return texts.stream().anyMatch(text -> text.contains(fragment));
+    }
+
+    private static void await(BooleanSupplier condition, String what) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail("timed out waiting for " + what);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.phaser.tank.manager;
+
+import com.phaser.tank.handler.OutboundSession;
+import com.phaser.tank.handler.OutboundSettings;
+import com.phaser.tank.handler.OverflowPolicy;
+import com.phaser.tank.handler.StubWebSocketSession;
+import com.phaser.tank.model.Room;
+import com.phaser.tank.model.RoomState;
+import com.phaser.tank.protocol.WireFormat;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Creates and abandons many rooms and checks that the reaper gives back their threads,
+ * scheduler slots and memory.
+ */
+class RoomLifecycleTest {
+
+    private static final int ROOMS = 2000;
+    private static final long HEAP_SLACK_BYTES = 64L * 1024 * 1024;
+
+    @Test
+    void abandonedRoomsAreReclaimed() throws Exception {
+        RoomManager manager = new RoomManager();
+        GameScheduler scheduler = GameScheduler.getInstance();
+        OutboundSettings settings = new OutboundSettings(8, OverflowPolicy.COALESCE, Runnable::run);
+
+        try {
+            int baselineRooms = scheduler.getRoomCount();
+            int baselineThreads = Thread.activeCount();
+            long baselineHeap = usedHeapAfterGc();
+
+            List<StubWebSocketSession> sessions = new ArrayList<>();
+            List<WeakReference<Room>> created = new ArrayList<>();
+            for (int i = 0; i < ROOMS; i++) {
+                StubWebSocketSession creator = new StubWebSocketSession();
+                String roomId = manager.createRoom(new OutboundSession(creator, settings), "1", WireFormat.JSON);
+                assertNotNull(roomId, "level 1 must exist");
+                sessions.add(creator);
+
+                // Every other room gets a second player, so both waiting and running rooms are covered
+                if (i % 2 == 0) {
+                    StubWebSocketSession joiner = new StubWebSocketSession();
+                    assertTrue(manager.joinRoom(roomId, new OutboundSession(joiner, settings), WireFormat.JSON));
+                    sessions.add(joiner);
+                }
+                created.add(new WeakReference<>(manager.getRoomBySession(creator)));
+            }
+            assertEquals(ROOMS, manager.getRoomCount());
+            assertEquals(baselineRooms + ROOMS, scheduler.getRoomCount());
+
+            // Clients vanish without a close handshake
+            sessions.forEach(session -> session.setOpen(false));
+            sessions.clear();
+
+            assertEquals(ROOMS, manager.reapRooms(System.currentTimeMillis()));
+            assertEquals(0, manager.getRoomCount());
+            for (WeakReference<Room> ref : created) {
+                Room room = ref.get();
+                if (room != null) {
+                    assertEquals(RoomState.CLOSED, room.getState());
+                }
+            }
+
+            assertEquals(baselineRooms, scheduler.getRoomCount());
+            // Workers start lazily with their first room, one per core, and are then reused
+            int allowedThreads = baselineThreads + scheduler.getWorkerCount() + 2;
+            assertTrue(Thread.activeCount() <= allowedThreads,
+                    "threads " + Thread.activeCount() + " vs allowed " + allowedThreads);
+
+            for (int attempt = 0; attempt < 20 && created.stream().anyMatch(ref -> ref.get() != null); attempt++) {
+                usedHeapAfterGc();
+            }
+            assertTrue(created.stream().allMatch(ref -> ref.get() == null), "closed rooms are still reachable");
+            long heap = usedHeapAfterGc();
+            assertTrue(heap <= baselineHeap + HEAP_SLACK_BYTES, "heap " + heap + " vs baseline " + baselineHeap);
+        } finally {
+            manager.stop();
+        }
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        System.gc();
+        Thread.sleep(100);
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
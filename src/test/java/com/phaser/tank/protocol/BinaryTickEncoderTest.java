@@ -0,0 +1,142 @@
+package com.phaser.tank.protocol;
+
+import com.phaser.tank.event.EventType;
+import com.phaser.tank.event.GameEvent;
+import com.phaser.tank.event.TickEvents;
+import com.phaser.tank.model.BulletOrigin;
+import com.phaser.tank.model.Direction;
+import com.phaser.tank.model.LevelGrid;
+import com.phaser.tank.snapshot.SnapshotDelta;
+import com.phaser.tank.snapshot.SnapshotHistory;
+import com.phaser.tank.snapshot.WorldSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Decodes a keyframe and a delta frame field by field against the layout documented on
+ * {@link BinaryTickEncoder}.
+ */
+class BinaryTickEncoderTest {
+
+    private final BinaryTickEncoder encoder = new BinaryTickEncoder();
+    private final SnapshotHistory history = new SnapshotHistory(8);
+    private final SnapshotDelta delta = new SnapshotDelta();
+    private final LevelGrid level = LevelGrid.fromRows(List.of("..#", "@.~"));
+
+    @Test
+    void keyframeCarriesEventsMapAndEveryEntity() {
+        WorldSnapshot snapshot = history.begin(10);
+        snapshot.addEntity(WorldSnapshot.KIND_ENEMY, 300, 7, 8, Direction.DOWN.ordinal(), 2);
+        snapshot.addEntity(WorldSnapshot.KIND_PLAYER, 1, 5, 6, Direction.LEFT.ordinal(), 3);
+        history.commit(snapshot);
+        delta.compute(history, -1, snapshot);
+
+        TickEvents events = new TickEvents();
+        GameEvent bullet = events.bullets.append(EventType.BULLET_CREATE);
+        bullet.netId = 42;
+        bullet.x = 3;
+        bullet.y = 4;
+        bullet.direction = Direction.RIGHT;
+        bullet.origin = BulletOrigin.ENEMY;
+        GameEvent tile = events.tiles.append(EventType.TILE_UPDATE);
+        tile.x = 2;
+        tile.y = 0;
+        tile.tile = '.';
+        GameEvent player = events.players.append(EventType.PLAYER_MOVE);
+        player.playerId = 1;
+        player.x = 5;
+        player.y = 6;
+        player.direction = Direction.LEFT;
+
+        ByteBuffer in = ByteBuffer.wrap(encoder.encode(10, events, delta, level));
+        assertEquals(BinaryTickEncoder.MSG_GAME_TICK, in.get());
+        assertEquals(10, in.getInt());
+
+        // bullets: flags = direction | action create (0) << 2 | enemy origin << 4
+        assertEquals(1, in.getShort());
+        assertEquals(Direction.RIGHT.ordinal() | 1 << 4, in.get());
+        assertEquals(42, in.getShort());
+        assertEquals(3, in.get());
+        assertEquals(4, in.get());
+        assertEquals(0, in.getShort(), "bonuses");
+        // tiles
+        assertEquals(1, in.getShort());
+        assertEquals(2, in.get());
+        assertEquals(0, in.get());
+        assertEquals('.', in.get());
+        assertEquals(0, in.getShort(), "explosions");
+        assertEquals(0, in.getShort(), "enemies");
+        // players: action move (1) << 2
+        assertEquals(1, in.getShort());
+        assertEquals(Direction.LEFT.ordinal() | 1 << 2, in.get());
+        assertEquals(1, in.get());
+        assertEquals(5, in.get());
+        assertEquals(6, in.get());
+
+        assertEquals(0xFFFFFFFF, in.getInt(), "keyframe baseline");
+        assertEquals(2, in.get(), "rows");
+        assertEquals(3, in.get(), "cols");
+        for (char expected : "..#@.~".toCharArray()) {
+            assertEquals(expected, in.get());
+        }
+
+        // Upserts are sorted by kind, then id
+        assertEquals(2, in.getShort());
+        assertEntity(in, WorldSnapshot.KIND_PLAYER, 1, 5, 6, Direction.LEFT, 3);
+        assertEntity(in, WorldSnapshot.KIND_ENEMY, 300, 7, 8, Direction.DOWN, 2);
+        assertEquals(0, in.getShort(), "removed");
+        assertEquals(0, in.getShort(), "tile changes");
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    void deltaCarriesOnlyChangesSinceTheBaseline() {
+        WorldSnapshot baseline = history.begin(10);
+        baseline.addEntity(WorldSnapshot.KIND_PLAYER, 1, 5, 6, Direction.LEFT.ordinal(), 3);
+        baseline.addEntity(WorldSnapshot.KIND_PLAYER, 2, 9, 9, Direction.UP.ordinal(), 3);
+        baseline.addEntity(WorldSnapshot.KIND_ENEMY, 300, 7, 8, Direction.DOWN.ordinal(), 2);
+        history.commit(baseline);
+
+        WorldSnapshot current = history.begin(11);
+        current.addEntity(WorldSnapshot.KIND_PLAYER, 1, 5, 7, Direction.DOWN.ordinal(), 3);
+        current.addEntity(WorldSnapshot.KIND_PLAYER, 2, 9, 9, Direction.UP.ordinal(), 3);
+        current.addEntity(WorldSnapshot.KIND_BULLET, 42, 3, 4, Direction.RIGHT.ordinal(), BulletOrigin.ENEMY.ordinal());
+        current.addTile(2, 0, '.');
+        history.commit(current);
+        delta.compute(history, 10, current);
+
+        ByteBuffer in = ByteBuffer.wrap(encoder.encode(11, new TickEvents(), delta, level));
+        assertEquals(BinaryTickEncoder.MSG_GAME_TICK, in.get());
+        assertEquals(11, in.getInt());
+        for (int section = 0; section < 6; section++) {
+            assertEquals(0, in.getShort(), "event section " + section);
+        }
+
+        assertEquals(10, in.getInt(), "baseline");
+        // No level map in a delta; the unchanged player 2 is left out
+        assertEquals(2, in.getShort());
+        assertEntity(in, WorldSnapshot.KIND_PLAYER, 1, 5, 7, Direction.DOWN, 3);
+        assertEntity(in, WorldSnapshot.KIND_BULLET, 42, 3, 4, Direction.RIGHT, BulletOrigin.ENEMY.ordinal());
+        assertEquals(1, in.getShort());
+        assertEquals(WorldSnapshot.KIND_ENEMY, in.get());
+        assertEquals(300, in.getShort());
+        assertEquals(1, in.getShort());
+        assertEquals(2, in.get());
+        assertEquals(0, in.get());
+        assertEquals('.', in.get());
+        assertFalse(in.hasRemaining());
+    }
+
+    private static void assertEntity(ByteBuffer in, int kind, int id, int x, int y, Direction direction, int extra) {
+        assertEquals(kind, in.get(), "kind");
+        assertEquals(id, in.getShort(), "id");
+        assertEquals(x, in.get(), "x");
+        assertEquals(y, in.get(), "y");
+        assertEquals(direction.ordinal(), in.get(), "direction");
+        assertEquals(extra, in.getShort(), "extra");
+    }
+}
@@ -0,0 +1,68 @@
+package com.phaser.tank.protocol;
+
+import com.phaser.tank.model.Direction;
+import com.phaser.tank.protocol.ClientMessageDecoder.ClientMessage;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientMessageDecoderTest {
+
+    private final ClientMessageDecoder decoder = new ClientMessageDecoder();
+
+    @Test
+    void decodesEveryMessageType() {
+        ClientMessage move = decoder.decode("{\"type\":\"player_move\",\"direction\":\"LEFT\"}");
+        assertEquals(ClientMessageType.PLAYER_MOVE, move.getType());
+        assertEquals(Direction.LEFT, move.getDirection());
+
+        assertEquals(Direction.UP, decoder.decode("{\"direction\":\"up\",\"type\":\"player_move\"}").getDirection());
+        assertEquals(ClientMessageType.FIRE_BULLET, decoder.decode("{\"type\":\"fire_bullet\"}").getType());
+        assertEquals(ClientMessageType.RESYNC, decoder.decode("{\"type\":\"resync\"}").getType());
+        assertEquals(ClientMessageType.NEXT_LEVEL, decoder.decode("{\"type\":\"next_level\"}").getType());
+    }
+
+    @Test
+    void skipsExtraFields() {
+        ClientMessage move = decoder.decode("{\"roomId\":\"1234\",\"seq\":7,\"meta\":{\"type\":\"fire_bullet\",\"list\":[1,{\"a\":null}]},"
+                + "\"type\":\"player_move\",\"flags\":[true,false],\"direction\":\"DOWN\"}");
+        assertEquals(ClientMessageType.PLAYER_MOVE, move.getType());
+        assertEquals(Direction.DOWN, move.getDirection());
+
+        // A fire carries no direction, even if the client sends one
+        assertNull(decoder.decode("{\"type\":\"fire_bullet\",\"direction\":\"UP\"}").getDirection());
+    }
+
+    @Test
+    void rejectsUnknownTypes() {
+        assertRejected("{\"type\":\"teleport\"}", "Unknown message type: teleport");
+        assertRejected("{\"type\":\"PLAYER_MOVE\",\"direction\":\"UP\"}", "Unknown message type");
+    }
+
+    @Test
+    void rejectsMissingFields() {
+        assertRejected("{}", "Unknown message type: null");
+        assertRejected("{\"direction\":\"UP\"}", "Unknown message type: null");
+        assertRejected("{\"type\":\"player_move\"}", "Invalid direction: null");
+        assertRejected("{\"type\":\"player_move\",\"direction\":\"NORTH\"}", "Invalid direction: NORTH");
+        // Fields of the wrong JSON type count as missing
+        assertRejected("{\"type\":1}", "Unknown message type: null");
+        assertRejected("{\"type\":\"player_move\",\"direction\":[\"UP\"]}", "Invalid direction: null");
+    }
+
+    @Test
+    void rejectsMalformedJson() {
+        assertRejected("", "Message is not a JSON object");
+        assertRejected("[\"player_move\"]", "Message is not a JSON object");
+        assertRejected("\"fire_bullet\"", "Message is not a JSON object");
+        assertRejected("{\"type\":\"fire_bullet\"", "Malformed message");
+        assertRejected("{\"type\" \"fire_bullet\"}", "Malformed message");
+        assertRejected("{type:\"fire_bullet\"}", "Malformed message");
+    }
+
+    private void assertRejected(String payload, String messagePrefix) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> decoder.decode(payload));
+        assertTrue(e.getMessage().startsWith(messagePrefix), () -> "unexpected message: " + e.getMessage());
+        assertFalse(e.getMessage().contains("\n"), "errors are logged on one line");
+    }
+}
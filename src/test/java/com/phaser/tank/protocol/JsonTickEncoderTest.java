@@ -0,0 +1,123 @@
+package com.phaser.tank.protocol;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phaser.tank.event.EventType;
+import com.phaser.tank.event.GameEvent;
+import com.phaser.tank.event.TickEvents;
+import com.phaser.tank.model.BulletOrigin;
+import com.phaser.tank.model.Direction;
+import com.phaser.tank.model.LevelGrid;
+import com.phaser.tank.snapshot.SnapshotDelta;
+import com.phaser.tank.snapshot.SnapshotHistory;
+import com.phaser.tank.snapshot.WorldSnapshot;
+import com.phaser.tank.util.GameConstants;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parses streamed game_tick messages back with Jackson and checks every field.
+ */
+class JsonTickEncoderTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonTickEncoder encoder = new JsonTickEncoder();
+    private final SnapshotHistory history = new SnapshotHistory(8);
+    private final SnapshotDelta delta = new SnapshotDelta();
+    private final LevelGrid level = LevelGrid.fromRows(List.of("..#", "@.~"));
+
+    @Test
+    void keyframeCarriesEventsMapAndEveryEntity() throws Exception {
+        WorldSnapshot snapshot = history.begin(10);
+        snapshot.addEntity(WorldSnapshot.KIND_PLAYER, 1, 5, 6, Direction.LEFT.ordinal(), 3);
+        snapshot.addEntity(WorldSnapshot.KIND_BONUS, 7, 1, 2, Direction.UP.ordinal(), 0);
+        history.commit(snapshot);
+        delta.compute(history, -1, snapshot);
+
+        TickEvents events = new TickEvents();
+        GameEvent bullet = events.bullets.append(EventType.BULLET_CREATE);
+        bullet.netId = 42;
+        bullet.x = 3;
+        bullet.y = 4;
+        bullet.direction = Direction.RIGHT;
+        bullet.origin = BulletOrigin.ENEMY;
+        GameEvent collected = events.bonuses.append(EventType.BONUS_COLLECTED);
+        collected.playerId = 1;
+        collected.netId = 7;
+        collected.bonusType = GameConstants.BONUS_TYPES.get(0);
+        GameEvent explosion = events.explosions.append(EventType.EXPLOSION);
+        explosion.x = 8;
+        explosion.y = 9;
+
+        JsonNode root = mapper.readTree(encoder.encode(10, events, delta, level));
+        assertEquals("game_tick", root.get("type").asText());
+        assertEquals(10, root.get("tick").asLong());
+
+        JsonNode bullets = root.get("bullets");
+        assertEquals(1, bullets.size());
+        assertEquals("create", bullets.get(0).get("action").asText());
+        assertEquals(42, bullets.get(0).get("bulletId").asInt());
+        assertEquals(3, bullets.get(0).get("x").asInt());
+        assertEquals(4, bullets.get(0).get("y").asInt());
+        assertEquals("RIGHT", bullets.get(0).get("direction").asText());
+        assertEquals("enemy", bullets.get(0).get("origin").asText());
+
+        JsonNode bonus = root.get("bonuses").get(0);
+        assertEquals("collected", bonus.get("event").asText());
+        assertEquals(1, bonus.get("playerId").asInt());
+        assertEquals(7, bonus.get("bonusId").asInt());
+        assertEquals(GameConstants.BONUS_TYPES.get(0), bonus.get("bonusType").asText());
+
+        assertEquals(8, root.get("explosions").get(0).get("x").asInt());
+        assertEquals(9, root.get("explosions").get(0).get("y").asInt());
+        // Empty sections are left out
+        assertFalse(root.has("tiles"));
+        assertFalse(root.has("enemyEvents"));
+        assertFalse(root.has("playerEvents"));
+
+        JsonNode state = root.get("state");
+        assertEquals(-1, state.get("baseline").asLong());
+        assertTrue(state.get("keyframe").asBoolean());
+        assertEquals(mapper.readTree("[\"..#\",\"@.~\"]"), state.get("levelMap"));
+
+        JsonNode entities = state.get("entities");
+        assertEquals(2, entities.size());
+        assertEquals(mapper.readTree("{\"kind\":\"player\",\"id\":1,\"x\":5,\"y\":6,\"direction\":\"LEFT\",\"health\":3}"),
+                entities.get(0));
+        assertEquals(mapper.readTree("{\"kind\":\"bonus\",\"id\":7,\"x\":1,\"y\":2,\"direction\":\"UP\",\"bonusType\":\""
+                + GameConstants.BONUS_TYPES.get(0) + "\"}"), entities.get(1));
+        assertEquals(0, state.get("removed").size());
+        assertEquals(0, state.get("tiles").size());
+    }
+
+    @Test
+    void deltaCarriesOnlyChangesSinceTheBaseline() throws Exception {
+        WorldSnapshot baseline = history.begin(10);
+        baseline.addEntity(WorldSnapshot.KIND_PLAYER, 1, 5, 6, Direction.LEFT.ordinal(), 3);
+        baseline.addEntity(WorldSnapshot.KIND_ENEMY, 300, 7, 8, Direction.DOWN.ordinal(), 2);
+        history.commit(baseline);
+
+        WorldSnapshot current = history.begin(11);
+        current.addEntity(WorldSnapshot.KIND_PLAYER, 1, 5, 6, Direction.LEFT.ordinal(), 3);
+        current.addEntity(WorldSnapshot.KIND_BULLET, 42, 3, 4, Direction.RIGHT.ordinal(), BulletOrigin.PLAYER.ordinal());
+        current.addTile(2, 0, '.');
+        history.commit(current);
+        delta.compute(history, 10, current);
+
+        JsonNode root = mapper.readTree(encoder.encode(11, new TickEvents(), delta, level));
+        assertEquals("game_tick", root.get("type").asText());
+        assertEquals(11, root.get("tick").asLong());
+
+        JsonNode state = root.get("state");
+        assertEquals(10, state.get("baseline").asLong());
+        assertFalse(state.get("keyframe").asBoolean());
+        assertFalse(state.has("levelMap"));
+        assertEquals(mapper.readTree("[{\"kind\":\"bullet\",\"id\":42,\"x\":3,\"y\":4,\"direction\":\"RIGHT\",\"origin\":\"player\"}]"),
+                state.get("entities"));
+        assertEquals(mapper.readTree("[{\"kind\":\"enemy\",\"id\":300}]"), state.get("removed"));
+        assertEquals(mapper.readTree("[{\"x\":2,\"y\":0,\"tile\":\".\"}]"), state.get("tiles"));
+    }
+}
@@ -0,0 +1,328 @@
+package com.phaser.tank.snapshot;
+
+import com.phaser.tank.util.GameConstants;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Applies deltas to the client's copy of the world and checks it ends up equal to the full
+ * snapshot, with frames randomly dropped on the way like a slow client would see them.
+ */
+class SnapshotDeltaTest {
+
+    private static final int TICKS = 5000;
+    private static final int SIZE = GameConstants.MAP_COLS;
+
+    /**
+     * What a client rebuilds from the frames it received.
+     */
+    private static final class ClientView {
+        final TreeMap<Integer, Long> entities = new TreeMap<>();
+        final char[][] tiles = new char[SIZE][SIZE];
+        long ackedTick = -1;
+
+        void apply(SnapshotDelta delta, char[][] levelMap, long tick) {
+            if (delta.isKeyframe()) {
+                entities.clear();
+                for (int y = 0; y < SIZE; y++) {
+                    tiles[y] = levelMap[y].clone();
+                }
+            } else {
+                assertEquals(ackedTick, delta.getBaselineTick());
+                for (int i = 0; i < delta.getRemovedCount(); i++) {
+                    int key = delta.getRemovedKind(i) << 16 | delta.getRemovedId(i);
+                    assertNotNull(entities.remove(key), "removed an entity the client does not have");
+                }
+                for (int i = 0; i < delta.getTileCount(); i++) {
+                    int tile = delta.getTile(i);
+                    tiles[WorldSnapshot.tileY(tile)][WorldSnapshot.tileX(tile)] = WorldSnapshot.tileChar(tile);
+                }
+            }
+            for (int i = 0; i < delta.getUpsertCount(); i++) {
+                long entity = delta.getUpsert(i);
+                entities.put((int) (entity >>> 32), entity);
+            }
+            ackedTick = tick;
+        }
+    }
+
+    @Test
+    void deltasRebuildTheFullSnapshot() {
+        Random random = new Random(7);
+        SnapshotHistory history = new SnapshotHistory(GameConstants.SNAPSHOT_HISTORY);
+        SnapshotDelta delta = new SnapshotDelta();
+
+        Map<Integer, int[]> world = new HashMap<>();
+        char[][] levelMap = new char[SIZE][SIZE];
+        for (char[] row : levelMap) Arrays.fill(row, '0');
+
+        ClientView client = new ClientView();
+        int keyframes = 0;
+        int deltas = 0;
+
+        for (long tick = 0; tick < TICKS; tick++) {
+            WorldSnapshot snapshot = nextSnapshot(random, history, tick, world, levelMap);
+
+            // Most frames arrive; every so often the client stalls for longer than the history
+            boolean delivered = tick % 500 < 400 ? random.nextInt(4) > 0 : tick % 500 > 480;
+            if (!delivered) continue;
+
+            delta.compute(history, client.ackedTick, snapshot);
+            if (delta.isKeyframe()) keyframes++;
+            else deltas++;
+            client.apply(delta, levelMap, tick);
+
+            assertEquals(toMap(snapshot), client.entities, "entities at tick " + tick);
+            for (int y = 0; y < SIZE; y++) {
+                assertArrayEquals(levelMap[y], client.tiles[y], "tiles at tick " + tick);
+            }
+        }
+
+        assertTrue(keyframes > 1, "stalls must force keyframes");
+        assertTrue(deltas > keyframes * 10, "most frames must be deltas");
+    }
+
+    @Test
+    void baselineOutsideTheHistoryFallsBackToKeyframe() {
+        SnapshotHistory history = new SnapshotHistory(GameConstants.SNAPSHOT_HISTORY);
+        SnapshotDelta delta = new SnapshotDelta();
+
+        WorldSnapshot current = null;
+        for (long tick = 0; tick <= GameConstants.SNAPSHOT_HISTORY; tick++) {
+            current = history.begin(tick);
+            current.addEntity(WorldSnapshot.KIND_PLAYER, 1, (int) tick % SIZE, 3, 0, 0);
+            history.commit(current);
+        }
+
+        delta.compute(history, 1, current);
+        assertFalse(delta.isKeyframe(), "tick 1 is still the oldest snapshot in the ring");
+        assertEquals(1, delta.getUpsertCount());
+
+        delta.compute(history, 0, current);
+        assertTrue(delta.isKeyframe());
+        assertEquals(-1, delta.getBaselineTick());
+        assertEquals(1, delta.getUpsertCount());
+
+        delta.compute(history, -1, current);
+        assertTrue(delta.isKeyframe());
+    }
+
+    @Test
+    void reportsRemovalsAndAccumulatesTilesAcrossSkippedTicks() {
+        SnapshotHistory history = new SnapshotHistory(GameConstants.SNAPSHOT_HISTORY);
+        SnapshotDelta delta = new SnapshotDelta();
+
+        WorldSnapshot base = history.begin(10);
+        base.addEntity(WorldSnapshot.KIND_ENEMY, 4, 5, 5, 2, 1);
+        base.addEntity(WorldSnapshot.KIND_BULLET, 9, 6, 6, 1, 0);
+        history.commit(base);
+
+        WorldSnapshot middle = history.begin(11);
+        middle.addEntity(WorldSnapshot.KIND_ENEMY, 4, 5, 5, 2, 1);
+        middle.addTile(3, 4, '0');
+        history.commit(middle);
+
+        WorldSnapshot current = history.begin(12);
+        current.addEntity(WorldSnapshot.KIND_ENEMY, 4, 5, 6, 2, 1);
+        current.addTile(3, 4, '1');
+        current.addTile(7, 8, '0');
+        history.commit(current);
+
+        delta.compute(history, 10, current);
+        assertFalse(delta.isKeyframe());
+        assertEquals(10, delta.getBaselineTick());
+
+        assertEquals(1, delta.getRemovedCount());
+        assertEquals(WorldSnapshot.KIND_BULLET, delta.getRemovedKind(0));
+        assertEquals(9, delta.getRemovedId(0));
+
+        assertEquals(1, delta.getUpsertCount());
+        assertEquals(6, WorldSnapshot.y(delta.getUpsert(0)));
+
+        // Tile changes of every tick since the baseline, in order
+        assertEquals(3, delta.getTileCount());
+        assertEquals('0', WorldSnapshot.tileChar(delta.getTile(0)));
+        assertEquals('1', WorldSnapshot.tileChar(delta.getTile(1)));
+        assertEquals(7, WorldSnapshot.tileX(delta.getTile(2)));
+
+        delta.compute(history, 12, current);
+        assertTrue(delta.isKeyframe(), "no baseline newer than or equal to the current tick");
+    }
+
+    /**
+     * Frames queue up before the writer acknowledges them, so several deltas share one baseline,
+     * and queued frames are sometimes dropped. Each delta is applied to the client's state of its
+     * baseline tick.
+     */
+    @Test
+    void pipelinedDeltasApplyToTheirBaseline() {
+        Random random = new Random(11);
+        SnapshotHistory history = new SnapshotHistory(GameConstants.SNAPSHOT_HISTORY);
+        SnapshotDelta delta = new SnapshotDelta();
+
+        Map<Integer, int[]> world = new HashMap<>();
+        char[][] levelMap = new char[SIZE][SIZE];
+        for (char[] row : levelMap) Arrays.fill(row, '0');
+
+        // Client state per received tick, and frames encoded but not yet written
+        Map<Long, ClientState> received = new HashMap<>();
+        ArrayDeque<QueuedFrame> queue = new ArrayDeque<>();
+        Map<Long, Map<Integer, Long>> truth = new HashMap<>();
+        Map<Long, char[][]> truthTiles = new HashMap<>();
+        long ackedTick = -1;
+        int sharedBaselines = 0;
+
+        for (long tick = 0; tick < TICKS; tick++) {
+            WorldSnapshot snapshot = nextSnapshot(random, history, tick, world, levelMap);
+            truth.put(tick, toMap(snapshot));
+            truthTiles.put(tick, copy(levelMap));
+
+            delta.compute(history, ackedTick, snapshot);
+            ClientState base = delta.isKeyframe() ? null : received.get(delta.getBaselineTick());
+            assertTrue(delta.isKeyframe() || base != null, "baseline " + delta.getBaselineTick() + " was received");
+            if (!queue.isEmpty() && queue.peekLast().baseline == delta.getBaselineTick()) sharedBaselines++;
+            queue.addLast(new QueuedFrame(tick, delta.getBaselineTick(), ClientState.apply(base, delta, levelMap)));
+
+            // Sometimes the slow client loses queued frames, like COALESCE or DROP_OLDEST would
+            if (random.nextInt(40) == 0) {
+                queue.clear();
+            } else if (random.nextInt(20) == 0 && queue.size() > 1) {
+                queue.pollFirst();
+            }
+
+            // The writer catches up in bursts
+            for (int writes = random.nextInt(4) == 0 ? queue.size() : random.nextInt(2); writes > 0 && !queue.isEmpty(); writes--) {
+                QueuedFrame frame = queue.pollFirst();
+                long written = frame.tick;
+                ClientState state = frame.state;
+                assertEquals(truth.get(written), state.entities, "entities at tick " + written);
+                for (int y = 0; y < SIZE; y++) {
+                    assertArrayEquals(truthTiles.get(written)[y], state.tiles[y], "tiles at tick " + written);
+                }
+                received.put(written, state);
+                ackedTick = written;
+            }
+            // Clients only need the states of the last SNAPSHOT_HISTORY ticks
+            long oldestKept = tick - GameConstants.SNAPSHOT_HISTORY;
+            received.keySet().removeIf(t -> t < oldestKept);
+            truth.keySet().removeIf(t -> t < oldestKept - GameConstants.SNAPSHOT_HISTORY);
+            truthTiles.keySet().removeIf(t -> t < oldestKept - GameConstants.SNAPSHOT_HISTORY);
+        }
+
+        assertTrue(sharedBaselines > TICKS / 10, "frames must often be pipelined on one baseline");
+    }
+
+    @Test
+    void entityBornAndGoneSinceTheBaselineIsNotMentioned() {
+        SnapshotHistory history = new SnapshotHistory(GameConstants.SNAPSHOT_HISTORY);
+        SnapshotDelta delta = new SnapshotDelta();
+
+        history.commit(history.begin(9));
+        WorldSnapshot withBullet = history.begin(10);
+        withBullet.addEntity(WorldSnapshot.KIND_BULLET, 3, 4, 4, 0, 0);
+        history.commit(withBullet);
+        WorldSnapshot current = history.begin(11);
+        history.commit(current);
+
+        // The frame for tick 10 is still queued, so tick 11 is encoded against tick 9. Applied to
+        // the state of tick 10 it would leave a ghost bullet; applied to tick 9 it is right.
+        delta.compute(history, 9, current);
+        assertFalse(delta.isKeyframe());
+        assertEquals(9, delta.getBaselineTick());
+        assertTrue(delta.isEmpty());
+    }
+
+    private record QueuedFrame(long tick, long baseline, ClientState state) {
+    }
+
+    /**
+     * Entities and tiles a client rebuilt for one tick.
+     */
+    private static final class ClientState {
+        final TreeMap<Integer, Long> entities = new TreeMap<>();
+        final char[][] tiles = new char[SIZE][SIZE];
+
+        static ClientState apply(ClientState base, SnapshotDelta delta, char[][] levelMap) {
+            ClientState state = new ClientState();
+            char[][] from = delta.isKeyframe() ? levelMap : base.tiles;
+            for (int y = 0; y < SIZE; y++) {
+                state.tiles[y] = from[y].clone();
+            }
+            if (!delta.isKeyframe()) {
+                state.entities.putAll(base.entities);
+                for (int i = 0; i < delta.getRemovedCount(); i++) {
+                    int key = delta.getRemovedKind(i) << 16 | delta.getRemovedId(i);
+                    assertNotNull(state.entities.remove(key), "removed an entity the baseline does not have");
+                }
+                for (int i = 0; i < delta.getTileCount(); i++) {
+                    int tile = delta.getTile(i);
+                    state.tiles[WorldSnapshot.tileY(tile)][WorldSnapshot.tileX(tile)] = WorldSnapshot.tileChar(tile);
+                }
+            }
+            for (int i = 0; i < delta.getUpsertCount(); i++) {
+                long entity = delta.getUpsert(i);
+                state.entities.put((int) (entity >>> 32), entity);
+            }
+            return state;
+        }
+    }
+
+    private static WorldSnapshot nextSnapshot(Random random, SnapshotHistory history, long tick,
+                                              Map<Integer, int[]> world, char[][] levelMap) {
+        WorldSnapshot snapshot = history.begin(tick);
+        mutate(random, world);
+        for (Map.Entry<Integer, int[]> entry : world.entrySet()) {
+            int[] e = entry.getValue();
+            snapshot.addEntity(entry.getKey() >>> 16, entry.getKey() & 0xFFFF, e[0], e[1], e[2], e[3]);
+        }
+        for (int i = random.nextInt(3); i > 0; i--) {
+            int x = random.nextInt(SIZE);
+            int y = random.nextInt(SIZE);
+            char tile = (char) ('0' + random.nextInt(6));
+            levelMap[y][x] = tile;
+            snapshot.addTile(x, y, tile);
+        }
+        history.commit(snapshot);
+        return snapshot;
+    }
+
+    private static char[][] copy(char[][] tiles) {
+        char[][] copy = new char[SIZE][];
+        for (int y = 0; y < SIZE; y++) {
+            copy[y] = tiles[y].clone();
+        }
+        return copy;
+    }
+
+    private static void mutate(Random random, Map<Integer, int[]> world) {
+        for (int i = random.nextInt(3); i > 0; i--) {
+            int kind = random.nextInt(4);
+            int id = 1 + random.nextInt(40);
+            world.putIfAbsent(kind << 16 | id, new int[]{random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(4), 0});
+        }
+        for (Iterator<int[]> it = world.values().iterator(); it.hasNext(); ) {
+            int[] e = it.next();
+            int roll = random.nextInt(20);
+            if (roll == 0) {
+                it.remove();
+            } else if (roll < 8) {
+                e[0] = Math.floorMod(e[0] + random.nextInt(3) - 1, SIZE);
+                e[1] = Math.floorMod(e[1] + random.nextInt(3) - 1, SIZE);
+                e[2] = random.nextInt(4);
+                e[3] = random.nextInt(1 << 14);
+            }
+        }
+    }
+
+    private static Map<Integer, Long> toMap(WorldSnapshot snapshot) {
+        Map<Integer, Long> entities = new TreeMap<>();
+        for (int i = 0; i < snapshot.getEntityCount(); i++) {
+            long entity = snapshot.getEntity(i);
+            entities.put((int) (entity >>> 32), entity);
+        }
+        return entities;
+    }
+}
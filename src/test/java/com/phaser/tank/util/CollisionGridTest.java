@@ -0,0 +1,157 @@
+package com.phaser.tank.util;
+
+import com.phaser.tank.handler.OutboundSession;
+import com.phaser.tank.model.*;
+import com.phaser.tank.protocol.WireFormat;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the grid against the original nested-loop checks on random layouts.
+ */
+class CollisionGridTest {
+
+    private static final int ROUNDS = 2000;
+
+    @Test
+    void matchesNestedLoopCollisions() {
+        Random random = new Random(42);
+        CollisionGrid grid = new CollisionGrid(GameConstants.MAP_COLS, GameConstants.MAP_ROWS);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            BulletStore bullets = new BulletStore();
+            int bulletCount = random.nextInt(40);
+            for (int i = 0; i < bulletCount; i++) {
+                // Include positions outside the map, some beyond the grid margin
+                int x = random.nextInt(34) - 4;
+                int y = random.nextInt(34) - 4;
+                Direction direction = Direction.values()[random.nextInt(4)];
+                BulletOrigin origin = random.nextBoolean() ? BulletOrigin.PLAYER : BulletOrigin.ENEMY;
+                bullets.add(i + 1, x, y, direction, origin);
+            }
+
+            List<Player> players = new ArrayList<>();
+            int playerCount = random.nextInt(5);
+            for (int i = 0; i < playerCount; i++) {
+                Player player = new Player(new OutboundSession(null, null), i + 1, WireFormat.JSON);
+                player.setX(1 + random.nextInt(25));
+                player.setY(1 + random.nextInt(25));
+                player.setActive(random.nextInt(5) > 0);
+                player.setHealth(random.nextInt(5) > 0 ? 1 : 0);
+                players.add(player);
+            }
+
+            List<Enemy> enemies = new ArrayList<>();
+            int enemyCount = random.nextInt(8);
+            for (int i = 0; i < enemyCount; i++) {
+                Enemy enemy = new Enemy(i + 1, 1 + random.nextInt(25), 1 + random.nextInt(25), Direction.DOWN);
+                enemy.setHealth(random.nextInt(5) > 0 ? 1 : 0);
+                enemies.add(enemy);
+            }
+
+            grid.clear();
+            grid.addBullets(bullets);
+            players.forEach(grid::addPlayer);
+            enemies.forEach(grid::addEnemy);
+
+            Set<Integer> expectedColliding = detectBulletCollisions(bullets);
+            for (int i = 0; i < bullets.size(); i++) {
+                int slot = bullets.slotAt(i);
+                int x = bullets.getX(slot);
+                int y = bullets.getY(slot);
+                assertEquals(expectedColliding.contains(slot), grid.isBulletColliding(slot),
+                        "bullet-bullet at " + x + "," + y + " in round " + round);
+                assertEquals(isCrossing(bullets, slot), grid.isBulletCrossing(slot),
+                        "bullet crossing at " + x + "," + y + " in round " + round);
+
+                assertSame(firstPlayerHit(x, y, players), grid.findPlayerAt(x, y),
+                        "bullet-player at " + x + "," + y + " in round " + round);
+                assertSame(firstEnemyHit(x, y, enemies), grid.findEnemyAt(x, y),
+                        "bullet-enemy at " + x + "," + y + " in round " + round);
+            }
+        }
+    }
+
+    @Test
+    void bulletsFlyingAtEachOtherCross() {
+        CollisionGrid grid = new CollisionGrid(GameConstants.MAP_COLS, GameConstants.MAP_ROWS);
+        BulletStore bullets = new BulletStore();
+        int up = bullets.add(1, 5, 10, Direction.UP, BulletOrigin.PLAYER);
+        int down = bullets.add(2, 5, 9, Direction.DOWN, BulletOrigin.ENEMY);
+        int left = bullets.add(3, 12, 4, Direction.LEFT, BulletOrigin.PLAYER);
+        int chasing = bullets.add(4, 11, 4, Direction.LEFT, BulletOrigin.ENEMY);
+        // Just inside the grid margin, beyond it, and further out
+        int margin = bullets.add(5, -2, 7, Direction.LEFT, BulletOrigin.PLAYER);
+        int outside = bullets.add(6, -3, 7, Direction.RIGHT, BulletOrigin.ENEMY);
+        int far = bullets.add(7, -5, 7, Direction.LEFT, BulletOrigin.ENEMY);
+
+        grid.clear();
+        grid.addBullets(bullets);
+
+        assertTrue(grid.isBulletCrossing(up));
+        assertTrue(grid.isBulletCrossing(down));
+        // Same direction on the next tile is not a crossing
+        assertFalse(grid.isBulletCrossing(left));
+        assertFalse(grid.isBulletCrossing(chasing));
+        assertFalse(grid.isBulletColliding(up));
+        // Outside the grid the overflow list is searched
+        assertTrue(grid.isBulletCrossing(margin));
+        assertTrue(grid.isBulletCrossing(outside));
+        assertFalse(grid.isBulletCrossing(far));
+    }
+
+    // Reference nested-loop check the grid replaced
+    private static Set<Integer> detectBulletCollisions(BulletStore bullets) {
+        Set<Integer> bulletsToDestroy = new HashSet<>();
+
+        int n = bullets.size();
+        for (int i = 0; i < n; i++) {
+            int a = bullets.slotAt(i);
+            for (int j = i + 1; j < n; j++) {
+                int b = bullets.slotAt(j);
+                if (bullets.getX(a) == bullets.getX(b) && bullets.getY(a) == bullets.getY(b)) {
+                    bulletsToDestroy.add(a);
+                    bulletsToDestroy.add(b);
+                }
+            }
+        }
+
+        return bulletsToDestroy;
+    }
+
+    private static boolean isCrossing(BulletStore bullets, int slot) {
+        Direction direction = bullets.getDirection(slot);
+        int nextX = bullets.getX(slot) + (direction == Direction.RIGHT ? 1 : direction == Direction.LEFT ? -1 : 0);
+        int nextY = bullets.getY(slot) + (direction == Direction.DOWN ? 1 : direction == Direction.UP ? -1 : 0);
+        for (int i = 0; i < bullets.size(); i++) {
+            int other = bullets.slotAt(i);
+            if (bullets.getX(other) == nextX && bullets.getY(other) == nextY
+                    && bullets.getDirection(other) == direction.opposite()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Player firstPlayerHit(int x, int y, List<Player> players) {
+        for (Player player : players) {
+            if (player.isActive() && player.getHealth() > 0
+                    && Collisions.isBulletHittingTank(x, y, player.getX(), player.getY())) {
+                return player;
+            }
+        }
+        return null;
+    }
+
+    private static Enemy firstEnemyHit(int x, int y, List<Enemy> enemies) {
+        for (Enemy enemy : enemies) {
+            if (!enemy.isDestroyed() && Collisions.isBulletHittingTank(x, y, enemy.getX(), enemy.getY())) {
+                return enemy;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,217 @@
+package com.phaser.tank.util;
+
+import com.phaser.tank.manager.LevelCatalog;
+import com.phaser.tank.model.LevelGrid;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks A* paths against breadth-first distances on the shipped levels, and the path cache
+ * against level changes and its capacity.
+ */
+class EnemyPathFinderTest {
+
+    private static final int SAMPLED_STARTS = 20;
+
+    @Test
+    void pathLengthsMatchBreadthFirstDistancesOnShippedLevels() {
+        LevelCatalog catalog = LevelCatalog.getInstance();
+        Random random = new Random(7);
+        int levels = 0;
+
+        for (String name = "0"; name != null; name = catalog.getNextLevel(name)) {
+            LevelGrid level = catalog.getTemplate(name);
+            if (level == null) continue;
+            levels++;
+
+            FlowField field = new FlowField(level);
+            List<Integer> goals = new ArrayList<>();
+            for (int y = 0; y < level.getRows(); y++) {
+                for (int x = 0; x < level.getCols(); x++) {
+                    if (field.isAtGoal(x, y)) goals.add(y * level.getCols() + x);
+                }
+            }
+            assertFalse(goals.isEmpty(), "level " + name + " has no position next to the base");
+
+            // Every position against a breadth-first search from one goal
+            EnemyPathFinder finder = new EnemyPathFinder(level);
+            int goal = goals.get(0);
+            int goalX = goal % level.getCols();
+            int goalY = goal / level.getCols();
+            int[] distance = breadthFirst(level, goalX, goalY);
+            for (int y = 0; y < level.getRows(); y++) {
+                for (int x = 0; x < level.getCols(); x++) {
+                    if (!level.canStand(x, y)) continue;
+
+                    int[] path = finder.findPath(x, y, goalX, goalY);
+                    int expected = distance[y * level.getCols() + x];
+                    String where = "level " + name + " from " + x + "," + y;
+                    if (expected < 0) {
+                        assertEquals(0, path.length, where);
+                    } else {
+                        assertEquals(expected, path.length, where);
+                        assertStepsAreValid(level, finder, x, y, path, where);
+                    }
+                }
+            }
+
+            // The flow field distance is the shortest path to the nearest goal position
+            for (int i = 0; i < SAMPLED_STARTS; i++) {
+                int x = random.nextInt(level.getCols());
+                int y = random.nextInt(level.getRows());
+                if (!level.canStand(x, y) || field.isAtGoal(x, y)) continue;
+
+                int best = FlowField.UNREACHABLE;
+                for (int cell : goals) {
+                    int[] path = finder.findPath(x, y, cell % level.getCols(), cell / level.getCols());
+                    if (path.length > 0) best = Math.min(best, path.length);
+                }
+                assertEquals(field.getDistance(x, y), best, "level " + name + " from " + x + "," + y);
+            }
+        }
+        assertTrue(levels > 1, "no levels found");
+    }
+
+    @Test
+    void unreachableGoalsGiveAnEmptyPath() {
+        // Stone box around the goal, everything outside is open
+        char[][] tiles = emptyTiles(26, 26);
+        for (int i = 9; i <= 14; i++) {
+            tiles[9][i] = '@';
+            tiles[14][i] = '@';
+            tiles[i][9] = '@';
+            tiles[i][14] = '@';
+        }
+        LevelGrid level = level(tiles);
+        EnemyPathFinder finder = new EnemyPathFinder(level);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+            assertEquals(0, finder.findPath(3, 3, 12, 12).length);
+            assertEquals(0, finder.findPath(12, 12, 3, 3).length);
+            assertEquals(0, finder.findPath(3, 3, 9, 9).length, "goal inside a wall");
+            assertEquals(0, finder.findPath(3, 3, 40, 3).length, "goal outside the level");
+            assertEquals(0, finder.findPath(-1, 3, 5, 3).length, "start outside the level");
+            assertEquals(0, finder.findPath(3, 3, 3, 3).length, "start is the goal");
+        });
+        assertEquals(0, finder.findPath(12, 12, 22, 22).length, "no path out of the box");
+        assertEquals(4, finder.findPath(11, 11, 13, 13).length);
+    }
+
+    @Test
+    void destroyedBrickInvalidatesCachedPaths() {
+        // Brick wall across the whole level at column 13
+        char[][] tiles = emptyTiles(26, 26);
+        for (int y = 0; y < 26; y++) {
+            tiles[y][13] = '#';
+        }
+        LevelGrid level = level(tiles).copy();
+        EnemyPathFinder finder = new EnemyPathFinder(level);
+
+        int[] sameSide = finder.findPath(1, 1, 5, 1);
+        assertEquals(4, sameSide.length);
+        assertSame(sameSide, finder.findPath(1, 1, 5, 1), "repeated search is cached");
+        assertEquals(0, finder.findPath(5, 5, 20, 5).length, "wall blocks the way");
+
+        // Shoot a tank-sized hole into the wall
+        level.set(13, 4, TileHelper.EMPTY);
+        level.set(13, 5, TileHelper.EMPTY);
+
+        int[] through = finder.findPath(5, 5, 20, 5);
+        assertEquals(15, through.length, "path through the hole");
+        assertStepsAreValid(level, finder, 5, 5, through, "through the hole");
+        int[] again = finder.findPath(1, 1, 5, 1);
+        assertNotSame(sameSide, again, "cache was dropped with the level change");
+        assertArrayEquals(sameSide, again);
+    }
+
+    @Test
+    void cacheEvictsLeastRecentlyUsedPathAtCapacity() {
+        EnemyPathFinder finder = new EnemyPathFinder(level(emptyTiles(26, 26)));
+        int[][] paths = new int[EnemyPathFinder.CACHE_SIZE + 1][];
+        for (int i = 0; i < EnemyPathFinder.CACHE_SIZE; i++) {
+            paths[i] = finder.findPath(1, 1, goalX(i), goalY(i));
+            assertTrue(paths[i].length > 0);
+        }
+
+        // Touch the oldest entry, so the second oldest is the one to go
+        assertSame(paths[0], finder.findPath(1, 1, goalX(0), goalY(0)));
+        int last = EnemyPathFinder.CACHE_SIZE;
+        paths[last] = finder.findPath(1, 1, goalX(last), goalY(last));
+
+        assertSame(paths[0], finder.findPath(1, 1, goalX(0), goalY(0)));
+        assertSame(paths[last], finder.findPath(1, 1, goalX(last), goalY(last)));
+        assertSame(paths[2], finder.findPath(1, 1, goalX(2), goalY(2)));
+        int[] evicted = finder.findPath(1, 1, goalX(1), goalY(1));
+        assertNotSame(paths[1], evicted, "entry was searched again");
+        assertArrayEquals(paths[1], evicted);
+    }
+
+    private static int goalX(int i) {
+        return 2 + i % 24;
+    }
+
+    private static int goalY(int i) {
+        return 1 + i / 24;
+    }
+
+    private static void assertStepsAreValid(LevelGrid level, EnemyPathFinder finder, int x, int y, int[] path,
+                                            String where) {
+        for (int cell : path) {
+            int nx = finder.pathX(cell);
+            int ny = finder.pathY(cell);
+            assertEquals(1, Math.abs(nx - x) + Math.abs(ny - y), where + ": not a single step");
+            assertTrue(level.canStand(nx, ny), where + ": steps onto " + nx + "," + ny);
+            x = nx;
+            y = ny;
+        }
+    }
+
+    // Steps from every position to (goalX, goalY), -1 where it cannot be reached
+    private static int[] breadthFirst(LevelGrid level, int goalX, int goalY) {
+        int cols = level.getCols();
+        int[] distance = new int[cols * level.getRows()];
+        Arrays.fill(distance, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        distance[goalY * cols + goalX] = 0;
+        queue.add(goalY * cols + goalX);
+
+        int[] dx = {0, 0, -1, 1};
+        int[] dy = {-1, 1, 0, 0};
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            for (int d = 0; d < 4; d++) {
+                int nx = cell % cols + dx[d];
+                int ny = cell / cols + dy[d];
+                if (!level.canStand(nx, ny) || distance[ny * cols + nx] >= 0) continue;
+
+                distance[ny * cols + nx] = distance[cell] + 1;
+                queue.add(ny * cols + nx);
+            }
+        }
+        return distance;
+    }
+
+    private static char[][] emptyTiles(int cols, int rows) {
+        char[][] tiles = new char[rows][cols];
+        for (char[] row : tiles) {
+            Arrays.fill(row, '.');
+        }
+        return tiles;
+    }
+
+    private static LevelGrid level(char[][] tiles) {
+        List<String> rows = new ArrayList<>();
+        for (char[] row : tiles) {
+            rows.add(new String(row));
+        }
+        return LevelGrid.fromRows(rows);
+    }
+}
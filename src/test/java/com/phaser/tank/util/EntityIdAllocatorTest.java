@@ -0,0 +1,62 @@
+package com.phaser.tank.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityIdAllocatorTest {
+
+    @Test
+    void releasedIdsAreReusedOnlyAfterWrapping() {
+        EntityIdAllocator ids = new EntityIdAllocator();
+        assertEquals(1, ids.next());
+        assertEquals(2, ids.next());
+        ids.release(1);
+        assertEquals(3, ids.next());
+        assertEquals(2, ids.getUsedCount());
+    }
+
+    @Test
+    void wrapsAroundAndSkipsIdsStillInUse() {
+        EntityIdAllocator ids = new EntityIdAllocator();
+        for (int id = 1; id <= EntityIdAllocator.MAX_ID; id++) {
+            assertEquals(id, ids.next());
+            // Keep 1, 2 and 5 alive across the wrap
+            if (id != 1 && id != 2 && id != 5) ids.release(id);
+        }
+
+        assertEquals(3, ids.next());
+        assertEquals(4, ids.next());
+        assertEquals(6, ids.next());
+
+        ids.release(2);
+        assertEquals(7, ids.next());
+        assertEquals(6, ids.getUsedCount());
+    }
+
+    @Test
+    void throwsWhenEveryIdIsTaken() {
+        EntityIdAllocator ids = new EntityIdAllocator();
+        for (int i = 0; i < EntityIdAllocator.MAX_ID; i++) {
+            ids.next();
+        }
+        assertEquals(EntityIdAllocator.MAX_ID, ids.getUsedCount());
+        assertThrows(IllegalStateException.class, ids::next);
+
+        // The only free id is found wherever the counter is
+        ids.release(4242);
+        assertEquals(4242, ids.next());
+        assertThrows(IllegalStateException.class, ids::next);
+    }
+
+    @Test
+    void ignoresUnknownAndRepeatedReleases() {
+        EntityIdAllocator ids = new EntityIdAllocator();
+        int id = ids.next();
+        ids.release(id);
+        ids.release(id);
+        ids.release(0);
+        ids.release(EntityIdAllocator.MAX_ID + 1);
+        assertEquals(0, ids.getUsedCount());
+    }
+}
@@ -0,0 +1,64 @@
+package com.phaser.tank.util;
+
+import com.phaser.tank.model.LevelGrid;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares incremental updates against a full recompute on random levels with random
+ * tiles opened and closed.
+ */
+class FlowFieldTest {
+
+    private static final int LEVELS = 50;
+    private static final int CHANGES = 300;
+
+    private static final byte[] TILES = {
+            TileHelper.EMPTY, TileHelper.BRICK, TileHelper.STONE, TileHelper.BUSH, TileHelper.WATER, TileHelper.ICE
+    };
+
+    @Test
+    void incrementalUpdatesMatchFullRecompute() {
+        Random random = new Random(42);
+
+        for (int round = 0; round < LEVELS; round++) {
+            LevelGrid level = randomLevel(random, 0.1 + random.nextDouble() * 0.4).copy();
+            FlowField incremental = new FlowField(level);
+
+            for (int change = 0; change < CHANGES; change++) {
+                int x = random.nextInt(GameConstants.MAP_COLS);
+                int y = random.nextInt(GameConstants.MAP_ROWS);
+                // Mostly bricks being shot away, sometimes walls appearing
+                byte tile = random.nextInt(4) > 0 ? TileHelper.EMPTY : TILES[random.nextInt(TILES.length)];
+                level.set(x, y, tile);
+                incremental.onTileChanged(x, y);
+
+                FlowField full = new FlowField(level);
+                for (int py = 0; py < GameConstants.MAP_ROWS; py++) {
+                    for (int px = 0; px < GameConstants.MAP_COLS; px++) {
+                        assertEquals(full.getDistance(px, py), incremental.getDistance(px, py),
+                                "round " + round + " change " + change + " at " + px + "," + py);
+                    }
+                }
+            }
+        }
+    }
+
+    private static LevelGrid randomLevel(Random random, double wallDensity) {
+        List<String> rows = new ArrayList<>();
+        for (int y = 0; y < GameConstants.MAP_ROWS; y++) {
+            StringBuilder row = new StringBuilder();
+            for (int x = 0; x < GameConstants.MAP_COLS; x++) {
+                byte tile = random.nextDouble() < wallDensity ? TILES[1 + random.nextInt(TILES.length - 1)] : TileHelper.EMPTY;
+                row.append(TileHelper.toChar(tile));
+            }
+            rows.add(row.toString());
+        }
+        return LevelGrid.fromRows(rows);
+    }
+}